@@ -0,0 +1,24 @@
+package com.example.financetracker.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the statement generator benchmarks with the gc and peak heap profilers attached.
+// Regular JMH options can be passed through, e.g. -p rows=1000 -p format=CSV
+public class StatementBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(StatementGeneratorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .addProfiler(PeakHeapProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.financetracker.benchmarks;
+
+import com.example.financetracker.*;
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
+import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.entities.User;
+import com.example.financetracker.model.repositories.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-opens=java.base/java.nio=ALL-UNNAMED"})
+public class StatementGeneratorBenchmark {
+
+    private static final String[] CATEGORIES = {"Food", "Fuel", "Salary", "Home Rent", "Travel", "Health", "Gifts"};
+    private static final String[] CURRENCIES = {"BGN", "EUR", "USD"};
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"JSON", "CSV", "ARROW", "XLSX", "PDF"})
+    private AccountStatementFormat format;
+
+    private List<TransactionStatementDTO> transactions;
+    private Account account;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    private AccountStatementJsonGenerator jsonGenerator;
+    private AccountStatementCsvGenerator csvGenerator;
+    private AccountStatementArrowGenerator arrowGenerator;
+    private AccountStatementExcelGenerator excelGenerator;
+    private AccountStatementPdfGenerator pdfGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // fixed seed so every run and every format sees the same rows
+        Random random = new Random(42);
+        startDate = LocalDateTime.of(2020, 1, 1, 0, 0);
+        transactions = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int category = random.nextInt(CATEGORIES.length);
+            transactions.add(new TransactionStatementDTO(
+                    startDate.plusMinutes(i),
+                    category + 1,
+                    CATEGORIES[category],
+                    "Transaction " + i,
+                    BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 2),
+                    CURRENCIES[random.nextInt(CURRENCIES.length)]));
+        }
+        endDate = startDate.plusMinutes(rows);
+
+        User owner = new User();
+        owner.setFirstName("Bench");
+        owner.setLastName("Mark");
+        account = new Account();
+        account.setId(1);
+        account.setName("Benchmark");
+        account.setOwner(owner);
+        account.setBalance(BigDecimal.valueOf(1_000_000));
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            categories.add(new Category(i + 1, null, CATEGORIES[i], Category.CategoryType.EXPENSE));
+        }
+        CategoryRepository categoryRepository = Mockito.mock(CategoryRepository.class);
+        Mockito.when(categoryRepository.findAll()).thenReturn(categories);
+
+        jsonGenerator = new AccountStatementJsonGenerator();
+        ReflectionTestUtils.setField(jsonGenerator, "objectMapper", new ObjectMapper());
+        csvGenerator = new AccountStatementCsvGenerator();
+        arrowGenerator = new AccountStatementArrowGenerator();
+        ReflectionTestUtils.setField(arrowGenerator, "categoryRepository", categoryRepository);
+        excelGenerator = new AccountStatementExcelGenerator();
+        pdfGenerator = new AccountStatementPdfGenerator();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        arrowGenerator.close();
+    }
+
+    // the rows are built once per trial, so the gc profiler only sees what the generator itself allocates
+    @Benchmark
+    public void generate() {
+        OutputStream out = OutputStream.nullOutputStream();
+        switch (format) {
+            case JSON -> jsonGenerator.generateJson(transactions.stream(), out);
+            case CSV -> csvGenerator.generateCsv(transactions.stream(), out);
+            case ARROW -> arrowGenerator.generateArrow(transactions.stream(), out);
+            case XLSX -> excelGenerator.generateExcel(account, transactions.stream(), out);
+            case PDF -> pdfGenerator.generatePdf(account, startDate, endDate, transactions.stream(), out);
+        }
+    }
+}
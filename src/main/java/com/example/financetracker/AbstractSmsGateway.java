@@ -0,0 +1,62 @@
+package com.example.financetracker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.concurrent.TimeUnit;
+
+// Sends on the notification executor, which bounds the queue and retries failures, and holds every send to
+// the provider's quota with a token bucket shared by all notification threads.
+public abstract class AbstractSmsGateway implements SmsGateway {
+
+    @Autowired
+    private NotificationExecutor notificationExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sms.rate-limit.per-second:30}")
+    private double ratePerSecond;
+
+    @Value("${sms.rate-limit.burst:30}")
+    private int burst;
+
+    private TokenBucket tokenBucket;
+
+    @PostConstruct
+    public void initRateLimit() {
+        tokenBucket = new TokenBucket(burst, ratePerSecond);
+    }
+
+    @Override
+    public void send(String to, String text) {
+        notificationExecutor.submit("sms", () -> {
+            try {
+                tokenBucket.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the SMS rate limit");
+            }
+            long start = System.nanoTime();
+            String outcome = "failure";
+            try {
+                deliver(to, text);
+                outcome = "success";
+            } finally {
+                Timer.builder("sms.delivery")
+                        .tag("gateway", getName())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    protected abstract String getName();
+
+    // sends one message and throws if the provider did not accept it
+    protected abstract void deliver(String to, String text);
+}
@@ -0,0 +1,64 @@
+package com.example.financetracker;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+@Component
+public class AccountOwnershipCache {
+
+    private final Map<Integer, Owner> ownerByAccount;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public AccountOwnershipCache(@Value("${accounts.ownership.cache.max-entries:10000}") int maxEntries,
+                                 @Value("${accounts.ownership.cache.ttl-seconds:60}") long ttlSeconds) {
+        this(maxEntries, ttlSeconds, System::currentTimeMillis);
+    }
+
+    AccountOwnershipCache(int maxEntries, long ttlSeconds, LongSupplier clock) {
+        // An account never changes its owner, so entries only have to go when the account is deleted. evict only
+        // reaches the node that deleted it, the TTL bounds how long the others keep answering for it.
+        this.ownerByAccount = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Owner> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.ttlMillis = ttlSeconds * 1000;
+        this.clock = clock;
+    }
+
+    public synchronized Integer getOwnerId(int accountId) {
+        Owner owner = ownerByAccount.get(accountId);
+        if (owner == null) {
+            return null;
+        }
+        if (owner.expiresAt <= clock.getAsLong()) {
+            ownerByAccount.remove(accountId);
+            return null;
+        }
+        return owner.ownerId;
+    }
+
+    public synchronized void put(int accountId, int ownerId) {
+        ownerByAccount.put(accountId, new Owner(ownerId, clock.getAsLong() + ttlMillis));
+    }
+
+    public synchronized void evict(int accountId) {
+        ownerByAccount.remove(accountId);
+    }
+
+    @AllArgsConstructor
+    private static class Owner {
+
+        private final int ownerId;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
+import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.repositories.CategoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.SneakyThrows;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Component
+public class AccountStatementArrowGenerator {
+
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final int AMOUNT_PRECISION = 38;
+    private static final int AMOUNT_SCALE = 2;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private final BufferAllocator rootAllocator = new RootAllocator();
+
+    @PreDestroy
+    public void close() {
+        rootAllocator.close();
+    }
+
+    // Writes an Arrow IPC stream in record batches; the category column is dictionary-encoded
+    // against all categories, which are few and known up front.
+    @SneakyThrows
+    public void generateArrow(Stream<TransactionStatementDTO> transactions, OutputStream outputStream) {
+        try (BufferAllocator allocator = rootAllocator.newChildAllocator("statement", 0, Long.MAX_VALUE);
+             VarCharVector categoryNames = new VarCharVector("category_names", allocator)) {
+
+            List<Category> categories = categoryRepository.findAll();
+            Map<Integer, Integer> categoryIndexes = new HashMap<>();
+            categoryNames.allocateNew(categories.size());
+            for (int i = 0; i < categories.size(); i++) {
+                categoryIndexes.put(categories.get(i).getId(), i);
+                categoryNames.setSafe(i, categories.get(i).getName().getBytes(StandardCharsets.UTF_8));
+            }
+            categoryNames.setValueCount(categories.size());
+            DictionaryEncoding categoryEncoding = new DictionaryEncoding(1L, false, new ArrowType.Int(32, true));
+            DictionaryProvider.MapDictionaryProvider dictionaries =
+                    new DictionaryProvider.MapDictionaryProvider(new Dictionary(categoryNames, categoryEncoding));
+
+            Schema schema = new Schema(List.of(
+                    Field.notNullable("date", new ArrowType.Timestamp(TimeUnit.MILLISECOND, null)),
+                    new Field("category", new FieldType(false, new ArrowType.Int(32, true), categoryEncoding), null),
+                    Field.nullable("description", ArrowType.Utf8.INSTANCE),
+                    Field.notNullable("amount", new ArrowType.Decimal(AMOUNT_PRECISION, AMOUNT_SCALE, 128)),
+                    Field.nullable("currency", ArrowType.Utf8.INSTANCE)));
+
+            try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+                 ArrowStreamWriter writer = new ArrowStreamWriter(root, dictionaries, Channels.newChannel(outputStream))) {
+                TimeStampMilliVector dates = (TimeStampMilliVector) root.getVector("date");
+                IntVector categoryIds = (IntVector) root.getVector("category");
+                VarCharVector descriptions = (VarCharVector) root.getVector("description");
+                DecimalVector amounts = (DecimalVector) root.getVector("amount");
+                VarCharVector currencies = (VarCharVector) root.getVector("currency");
+
+                writer.start();
+                Iterator<TransactionStatementDTO> iterator = transactions.iterator();
+                do {
+                    root.allocateNew();
+                    int row = 0;
+                    while (row < BATCH_SIZE && iterator.hasNext()) {
+                        TransactionStatementDTO transaction = iterator.next();
+                        dates.setSafe(row, transaction.getDate().toInstant(ZoneOffset.UTC).toEpochMilli());
+                        Integer categoryIndex = categoryIndexes.get(transaction.getCategoryId());
+                        if (categoryIndex == null) {
+                            // the dictionary went out with the schema, a category added since cannot be encoded
+                            throw new IllegalStateException("Category " + transaction.getCategoryId()
+                                    + " was created after the statement started, export it again");
+                        }
+                        categoryIds.setSafe(row, categoryIndex);
+                        setString(descriptions, row, transaction.getDescription());
+                        amounts.setSafe(row, transaction.getAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP));
+                        setString(currencies, row, transaction.getCurrencyKind());
+                        row++;
+                    }
+                    root.setRowCount(row);
+                    if (row > 0) {
+                        writer.writeBatch();
+                    }
+                } while (iterator.hasNext());
+                writer.end();
+            }
+        }
+    }
+
+    private void setString(VarCharVector vector, int row, String value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.Account;
+import jakarta.annotation.PostConstruct;
+import lombok.SneakyThrows;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Component
+public class AccountStatementCache {
+
+    private static final Logger logger = LogManager.getLogger(AccountStatementCache.class);
+
+    @Value("${statements.cache.dir:statement-cache}")
+    private String cacheDir;
+
+    @Value("${statements.cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    // file name -> size, access-ordered so iteration starts from the least recently used statement
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private Path cachePath;
+
+    @PostConstruct
+    @SneakyThrows
+    public void init() {
+        cachePath = Paths.get(cacheDir).toAbsolutePath();
+        Files.createDirectories(cachePath);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(cachePath)) {
+            files = stream.sorted(Comparator.comparingLong(p -> p.toFile().lastModified())).toList();
+        }
+        synchronized (entries) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".part")) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                long size = Files.size(file);
+                entries.put(name, size);
+                totalBytes += size;
+            }
+            evict();
+        }
+    }
+
+    // Everything that ends up in the generated file is part of the key, so entries never need invalidating:
+    // a new transaction bumps the account's data version and the old entries simply age out.
+    @SneakyThrows
+    public String key(Account account, AccountStatementFormat format, LocalDateTime startDate, LocalDateTime endDate) {
+        String source = account.getId() + "|" + format + "|" + startDate + "|" + endDate + "|"
+                + account.getDataVersion() + "|" + account.getBalance() + "|" + account.getName() + "|"
+                + account.getOwner().getFirstName() + "|" + account.getOwner().getLastName();
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest) + "." + format.getExtension();
+    }
+
+    // The file is opened while the lock keeps evict() away, and an open file outlives its deletion,
+    // so the caller can read it at its own pace even if it is evicted meanwhile. The caller closes the stream.
+    public InputStream open(String key) {
+        synchronized (entries) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+            try {
+                return Files.newInputStream(cachePath.resolve(key));
+            } catch (IOException e) {
+                totalBytes -= entries.remove(key);
+                return null;
+            }
+        }
+    }
+
+    @SneakyThrows
+    public CacheWriter newWriter(String key) {
+        return new CacheWriter(key, Files.createTempFile(cachePath, key, ".part"));
+    }
+
+    private void add(String key, Path file, long size) {
+        synchronized (entries) {
+            Long previous = entries.put(key, size);
+            if (previous != null) {
+                totalBytes -= previous;
+            }
+            totalBytes += size;
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            try {
+                Files.deleteIfExists(cachePath.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                logger.warn("Could not delete cached statement " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public class CacheWriter implements Closeable {
+
+        private final String key;
+        private final Path partFile;
+        private final OutputStream fileStream;
+        private boolean committed;
+
+        private CacheWriter(String key, Path partFile) throws IOException {
+            this.key = key;
+            this.partFile = partFile;
+            this.fileStream = new BufferedOutputStream(Files.newOutputStream(partFile));
+        }
+
+        // writes go to both the caller's stream and the cache file; closing it leaves the caller's stream open
+        public OutputStream tee(OutputStream target) {
+            return new FilterOutputStream(target) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    fileStream.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    fileStream.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                    fileStream.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+
+        public void commit() throws IOException {
+            fileStream.close();
+            Path file = cachePath.resolve(key);
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            add(key, file, Files.size(file));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                fileStream.close();
+                Files.deleteIfExists(partFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
+import lombok.SneakyThrows;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Component
+public class AccountStatementCsvGenerator {
+
+    @SneakyThrows
+    public void generateCsv(Stream<TransactionStatementDTO> transactions, OutputStream outputStream) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("date,category,description,amount,currency\r\n");
+        Iterator<TransactionStatementDTO> iterator = transactions.iterator();
+        while (iterator.hasNext()) {
+            TransactionStatementDTO transaction = iterator.next();
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getDate()));
+            writer.write(',');
+            writeField(writer, transaction.getCategoryName());
+            writer.write(',');
+            writeField(writer, transaction.getDescription());
+            writer.write(',');
+            writer.write(transaction.getAmount().toPlainString());
+            writer.write(',');
+            writeField(writer, transaction.getCurrencyKind());
+            writer.write("\r\n");
+        }
+        // flush only, the stream belongs to the caller
+        writer.flush();
+    }
+
+    private void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -1,70 +1,73 @@
 package com.example.financetracker;
 
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
 import com.example.financetracker.model.entities.Account;
-import com.example.financetracker.model.entities.Transaction;
-import com.example.financetracker.model.exceptions.BadRequestException;
-import com.example.financetracker.service.TransactionService;
-import lombok.SneakyThrows;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 @Component
 public class AccountStatementExcelGenerator {
 
-    @Autowired
-    private TransactionService transactionService;
+    private static final Logger logger = LogManager.getLogger(AccountStatementExcelGenerator.class);
 
-    @SneakyThrows
-    public ByteArrayOutputStream generateExcel(Account account, LocalDateTime startDate, LocalDateTime endDate, ByteArrayOutputStream outputStream) {
+    // rows kept in memory before SXSSF flushes them to its temp file
+    private static final int ROW_ACCESS_WINDOW = 100;
+    private static final int[] COLUMN_WIDTHS = {20, 20, 40, 14, 10, 14};
 
-        List<Transaction> transactions = transactionService.getTransactionsByAccountAndDateRange(account, startDate, endDate);
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Transactions");
+    public void generateExcel(Account account, Stream<TransactionStatementDTO> transactions, OutputStream outputStream) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Transactions");
 
-        BigDecimal balance = account.getBalance();
+            BigDecimal balance = account.getBalance();
 
-        Row headerRow = sheet.createRow(0);
-        headerRow.createCell(0).setCellValue("Date");
-        headerRow.createCell(1).setCellValue("Category");
-        headerRow.createCell(2).setCellValue("Description");
-        headerRow.createCell(3).setCellValue("Amount");
-        headerRow.createCell(4).setCellValue("Currency");
-        headerRow.createCell(5).setCellValue("Balance");
+            // fixed widths, autoSizeColumn would only see the rows still in the window
+            for (int i = 0; i < COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
 
-        int rowIndex = 1;
-        for (Transaction transaction : transactions) {
-            Row row = sheet.createRow(rowIndex++);
-            row.createCell(0).setCellValue(transaction.getDate().toString());
-            row.createCell(1).setCellValue(transaction.getCategory().getName());
-            row.createCell(2).setCellValue(transaction.getDescription());
-            row.createCell(3).setCellValue(transaction.getAmount().doubleValue());
-            row.createCell(4).setCellValue(transaction.getCategory().getName());
-            row.createCell(5).setCellValue(balance.doubleValue());
+            Row headerRow = sheet.createRow(0);
+            headerRow.createCell(0).setCellValue("Date");
+            headerRow.createCell(1).setCellValue("Category");
+            headerRow.createCell(2).setCellValue("Description");
+            headerRow.createCell(3).setCellValue("Amount");
+            headerRow.createCell(4).setCellValue("Currency");
+            headerRow.createCell(5).setCellValue("Balance");
 
-            balance = balance.add(transaction.getAmount());
-        }
+            int rowIndex = 1;
+            Iterator<TransactionStatementDTO> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                TransactionStatementDTO transaction = iterator.next();
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(transaction.getDate().toString());
+                row.createCell(1).setCellValue(transaction.getCategoryName());
+                row.createCell(2).setCellValue(transaction.getDescription());
+                row.createCell(3).setCellValue(transaction.getAmount().doubleValue());
+                row.createCell(4).setCellValue(transaction.getCurrencyKind());
+                row.createCell(5).setCellValue(balance.doubleValue());
 
-        // Autosize columns for better visibility
-        for(int i = 0; i < headerRow.getLastCellNum(); i++) {
-            sheet.autoSizeColumn(i);
-        }
+                balance = balance.add(transaction.getAmount());
+            }
 
-        try {
             workbook.write(outputStream);
             workbook.close();
         } catch (IOException e) {
-            throw new BadRequestException("Failed to write workbook to output stream.");
+            // the response is already committed, so rethrowing only aborts the stream and the client sees a broken download
+            logger.error("Writing the Excel statement of account " + account.getId() + " failed: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } finally {
+            workbook.dispose();
         }
-
-        return outputStream;
     }
 }
@@ -0,0 +1,33 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.exceptions.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+@Getter
+@AllArgsConstructor
+public enum AccountStatementFormat {
+
+    JSON("json", MediaType.APPLICATION_JSON_VALUE),
+    PDF("pdf", MediaType.APPLICATION_PDF_VALUE),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("csv", "text/csv"),
+    ARROW("arrow", "application/vnd.apache.arrow.stream");
+
+    private final String extension;
+    private final String contentType;
+
+    public String getFileName() {
+        return "statement." + extension;
+    }
+
+    public static AccountStatementFormat fromString(String format) {
+        for (AccountStatementFormat statementFormat : values()) {
+            if (statementFormat.extension.equalsIgnoreCase(format)) {
+                return statementFormat;
+            }
+        }
+        throw new BadRequestException("Unsupported format: " + format);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Component
+public class AccountStatementJsonGenerator {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // keeps the document shape of the former Gson export: description, date, amount, category.name
+    @SneakyThrows
+    public void generateJson(Stream<TransactionStatementDTO> transactions, OutputStream outputStream) {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<TransactionStatementDTO> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                TransactionStatementDTO transaction = iterator.next();
+                generator.writeStartObject();
+                generator.writeStringField("description", transaction.getDescription());
+                generator.writeStringField("date", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getDate()));
+                generator.writeNumberField("amount", transaction.getAmount());
+                generator.writeObjectFieldStart("category");
+                generator.writeStringField("name", transaction.getCategoryName());
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package com.example.financetracker;
 
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
 import com.example.financetracker.model.entities.Account;
-import com.example.financetracker.model.entities.Transaction;
-import com.example.financetracker.service.TransactionService;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.Element;
 import com.itextpdf.text.Paragraph;
@@ -11,28 +10,28 @@ import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 import lombok.SneakyThrows;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 @Component
 public class AccountStatementPdfGenerator {
 
-    @Autowired
-    private TransactionService transactionService;
+    // the incomplete table is handed to the document every this many rows, which writes them out and frees them
+    private static final int FLUSH_ROWS = 500;
 
     @SneakyThrows
-    public ByteArrayOutputStream generatePdf(Account account, LocalDateTime startDate, LocalDateTime endDate, ByteArrayOutputStream outputStream) {
-
-        List<Transaction> transactions = transactionService.getTransactionsByAccountAndDateRange(account, startDate, endDate);
+    public void generatePdf(Account account, LocalDateTime startDate, LocalDateTime endDate,
+                            Stream<TransactionStatementDTO> transactions, OutputStream outputStream) {
 
         Document document = new Document();
-        PdfWriter.getInstance(document, outputStream);
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        writer.setCloseStream(false);
         document.open();
 
         BigDecimal balance = account.getBalance();
@@ -47,6 +46,8 @@ public class AccountStatementPdfGenerator {
         document.add(new Paragraph("\n"));
 
         PdfPTable table = new PdfPTable(5);
+        table.setHeaderRows(1);
+        table.setComplete(false);
         PdfPCell dateHeader = new PdfPCell(new Phrase("Date"));
         dateHeader.setHorizontalAlignment(Element.ALIGN_CENTER);
         table.addCell(dateHeader);
@@ -67,20 +68,25 @@ public class AccountStatementPdfGenerator {
         balanceHeader.setHorizontalAlignment(Element.ALIGN_CENTER);
         table.addCell(balanceHeader);
 
-        for (Transaction transaction : transactions) {
+        int rows = 0;
+        Iterator<TransactionStatementDTO> iterator = transactions.iterator();
+        while (iterator.hasNext()) {
+            TransactionStatementDTO transaction = iterator.next();
             table.addCell(formatter.format(transaction.getDate()));
-            table.addCell(transaction.getCategory().getName());
+            table.addCell(transaction.getCategoryName());
             table.addCell(transaction.getDescription());
             table.addCell(transaction.getAmount().toString());
             table.addCell(balance.toString());
 
             balance = balance.add(transaction.getAmount());
+            if (++rows % FLUSH_ROWS == 0) {
+                document.add(table);
+            }
         }
 
+        table.setComplete(true);
         document.add(table);
 
         document.close();
-
-        return outputStream;
     }
-}
\ No newline at end of file
+}
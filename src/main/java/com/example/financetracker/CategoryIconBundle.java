@@ -0,0 +1,123 @@
+package com.example.financetracker;
+
+import com.example.financetracker.CategoryIconStore.CategoryIcon;
+import com.example.financetracker.model.DTOs.CategoryDTOs.CategoryIconEntryDTO;
+import com.example.financetracker.model.DTOs.CategoryDTOs.CategoryIconManifestDTO;
+import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.exceptions.NotFoundException;
+import com.example.financetracker.model.repositories.CategoryRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+@Component
+public class CategoryIconBundle {
+
+    private static final Logger logger = LogManager.getLogger(CategoryIconBundle.class);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryIconStore categoryIconStore;
+
+    private volatile Snapshot snapshot;
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = build(categoryRepository.findAll());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${category.icons.bundle.refresh-ms:300000}")
+    public void refresh() {
+        List<Category> categories = categoryRepository.findAll();
+        Snapshot current = snapshot;
+        if (current == null || !current.getFingerprint().equals(fingerprint(categories))) {
+            snapshot = build(categories);
+            logger.info("Rebuilt category icon bundle: " + snapshot.getManifest().getVersion());
+        }
+    }
+
+    @SneakyThrows
+    private Snapshot build(List<Category> categories) {
+        // taken before the icons are read, so a file replaced while building shows up at the next refresh
+        String fingerprint = fingerprint(categories);
+        List<Category> sorted = new ArrayList<>(categories);
+        sorted.sort(Comparator.comparingInt(Category::getId));
+        ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+        List<CategoryIconEntryDTO> entries = new ArrayList<>();
+        for (Category category : sorted) {
+            if (category.getIconUrl() == null) {
+                continue;
+            }
+            CategoryIcon icon;
+            try {
+                icon = categoryIconStore.getIcon(category.getIconUrl());
+            } catch (NotFoundException e) {
+                logger.warn("Icon for category " + category.getId() + " not found: " + category.getIconUrl());
+                continue;
+            }
+            byte[] content = icon.getContent() != null ? icon.getContent() : Files.readAllBytes(icon.getPath());
+            entries.add(new CategoryIconEntryDTO(category.getId(), category.getName(), icon.getContentType(),
+                    bundle.size(), content.length));
+            bundle.write(content);
+        }
+        byte[] bytes = bundle.toByteArray();
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        String version = HexFormat.of().formatHex(digest, 0, 8);
+        CategoryIconManifestDTO manifest = new CategoryIconManifestDTO(version,
+                "/categories/icons/bundle?v=" + version, bytes.length, entries);
+        return new Snapshot(fingerprint, manifest, bytes);
+    }
+
+    private String fingerprint(List<Category> categories) {
+        StringBuilder sb = new StringBuilder();
+        categories.stream()
+                .sorted(Comparator.comparingInt(Category::getId))
+                .forEach(c -> sb.append(c.getId()).append(':').append(c.getName()).append(':').append(c.getIconUrl())
+                        .append(':').append(getIconVersion(c)).append(';'));
+        return sb.toString();
+    }
+
+    // an icon file can be replaced under the same name, its size and modification time catch that
+    private String getIconVersion(Category category) {
+        if (category.getIconUrl() == null) {
+            return "";
+        }
+        try {
+            return categoryIconStore.getIcon(category.getIconUrl()).getETag();
+        } catch (NotFoundException e) {
+            return "missing";
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+
+        private final String fingerprint;
+        private final CategoryIconManifestDTO manifest;
+        private final byte[] bundle;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.exceptions.NotFoundException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class CategoryIconStore {
+
+    private static final String UPLOADS_DIR = "uploads";
+
+    @Value("${category.icons.cache.max-bytes:8388608}")
+    private long maxCacheBytes;
+
+    @Value("${category.icons.cache.max-file-size:262144}")
+    private long maxCachedFileSize;
+
+    // access-ordered, so iteration starts from the least recently used icon
+    private final LinkedHashMap<String, CategoryIcon> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    // Icons are replaced on disk under the same name, so a cached one is only served while the file's size and
+    // modification time still match; a stat is much cheaper than reading the file again.
+    public CategoryIcon getIcon(String fileName) {
+        CategoryIcon cached;
+        synchronized (cache) {
+            cached = cache.get(fileName);
+        }
+        if (cached != null) {
+            if (isCurrent(cached)) {
+                return cached;
+            }
+            remove(fileName, cached);
+        }
+        CategoryIcon icon = load(fileName);
+        if (icon.getContent() != null) {
+            put(fileName, icon);
+        }
+        return icon;
+    }
+
+    private boolean isCurrent(CategoryIcon icon) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(icon.getPath(), BasicFileAttributes.class);
+            return attributes.size() == icon.getLength() && attributes.lastModifiedTime().toMillis() == icon.getLastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void remove(String fileName, CategoryIcon stale) {
+        synchronized (cache) {
+            // another thread may already have cached the new version
+            if (cache.remove(fileName, stale)) {
+                cachedBytes -= stale.getLength();
+            }
+        }
+    }
+
+    private CategoryIcon load(String fileName) {
+        Path path = Paths.get(UPLOADS_DIR, fileName).toAbsolutePath().normalize();
+        if (!path.startsWith(Paths.get(UPLOADS_DIR).toAbsolutePath().normalize()) || !Files.isRegularFile(path)) {
+            throw new NotFoundException("File not found!");
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long length = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String eTag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+            String contentType = Files.probeContentType(path);
+            if (contentType == null) {
+                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+            byte[] content = length <= maxCachedFileSize ? Files.readAllBytes(path) : null;
+            return new CategoryIcon(path, contentType, length, lastModified, eTag, content);
+        } catch (IOException e) {
+            throw new NotFoundException("File not found!");
+        }
+    }
+
+    private void put(String fileName, CategoryIcon icon) {
+        synchronized (cache) {
+            CategoryIcon previous = cache.put(fileName, icon);
+            if (previous != null) {
+                cachedBytes -= previous.getLength();
+            }
+            cachedBytes += icon.getLength();
+            Iterator<Map.Entry<String, CategoryIcon>> iterator = cache.entrySet().iterator();
+            while (cachedBytes > maxCacheBytes && iterator.hasNext()) {
+                cachedBytes -= iterator.next().getValue().getLength();
+                iterator.remove();
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CategoryIcon {
+
+        private final Path path;
+        private final String contentType;
+        private final long length;
+        private final long lastModified;
+        private final String eTag;
+        // null when the icon is too large to be kept in memory and is streamed from disk instead
+        private final byte[] content;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.repositories.CategoryRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+@Component
+public class CategorySearchIndex {
+
+    private static final int MAX_RESULTS = 20;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private volatile Index index;
+
+    public List<Category> search(String query) {
+        Index current = index;
+        if (current == null) {
+            refresh();
+            current = index;
+        }
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // short queries are matched by prefix only, longer ones tolerate one or two typos
+        int maxDistance = normalized.length() <= 3 ? 0 : normalized.length() <= 6 ? 1 : 2;
+        Map<Integer, Match> matches = new HashMap<>();
+        int[] firstRow = new int[normalized.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        for (Map.Entry<Character, Node> child : current.root.children.entrySet()) {
+            walk(child.getValue(), child.getKey(), normalized, firstRow, Integer.MAX_VALUE, maxDistance, matches);
+        }
+        List<Match> sorted = new ArrayList<>(matches.values());
+        sorted.sort(Comparator.<Match>comparingInt(m -> m.distance)
+                .thenComparingInt(m -> m.category.getName().length())
+                .thenComparing(m -> m.category.getName()));
+        List<Category> result = new ArrayList<>();
+        for (int i = 0; i < sorted.size() && i < MAX_RESULTS; i++) {
+            result.add(sorted.get(i).category);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${category.search.refresh-ms:300000}")
+    public void refresh() {
+        List<Category> categories = categoryRepository.findAll();
+        Index current = index;
+        String fingerprint = fingerprint(categories);
+        if (current == null || !current.fingerprint.equals(fingerprint)) {
+            index = build(categories, fingerprint);
+        }
+    }
+
+    public void load(List<Category> categories) {
+        index = build(categories, fingerprint(categories));
+    }
+
+    // Levenshtein distance between the query and every trie prefix, one row per trie level.
+    // Once a prefix is within reach, its whole subtree matches with at most that distance.
+    private void walk(Node node, char ch, String query, int[] previousRow, int bestPrefixDistance,
+                      int maxDistance, Map<Integer, Match> matches) {
+        int columns = query.length() + 1;
+        int[] row = new int[columns];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int cost = query.charAt(i - 1) == ch ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previousRow[i] + 1), previousRow[i - 1] + cost);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+        int prefixDistance = Math.min(bestPrefixDistance, row[columns - 1]);
+        if (prefixDistance <= maxDistance) {
+            for (Category category : node.categories) {
+                Match match = matches.get(category.getId());
+                if (match == null || match.distance > prefixDistance) {
+                    matches.put(category.getId(), new Match(category, prefixDistance));
+                }
+            }
+        }
+        if (prefixDistance > maxDistance && rowMin > maxDistance) {
+            return;
+        }
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            walk(child.getValue(), child.getKey(), query, row, prefixDistance, maxDistance, matches);
+        }
+    }
+
+    private Index build(List<Category> categories, String fingerprint) {
+        Node root = new Node();
+        for (Category category : categories) {
+            if (category.getName() == null) {
+                continue;
+            }
+            String name = normalize(category.getName());
+            insert(root, name, category);
+            // multi-word names can also be found by any of their words
+            for (String word : name.split(" ")) {
+                if (!word.isEmpty() && !word.equals(name)) {
+                    insert(root, word, category);
+                }
+            }
+        }
+        return new Index(fingerprint, root);
+    }
+
+    private void insert(Node root, String key, Category category) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        if (!node.categories.contains(category)) {
+            node.categories.add(category);
+        }
+    }
+
+    private String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private String fingerprint(List<Category> categories) {
+        StringBuilder sb = new StringBuilder();
+        categories.stream()
+                .sorted(Comparator.comparingInt(Category::getId))
+                .forEach(c -> sb.append(c.getId()).append(':').append(c.getName()).append(';'));
+        return sb.toString();
+    }
+
+    private static class Node {
+
+        private final Map<Character, Node> children = new TreeMap<>();
+        private final List<Category> categories = new ArrayList<>(1);
+    }
+
+    @AllArgsConstructor
+    private static class Index {
+
+        private final String fingerprint;
+        private final Node root;
+    }
+
+    @AllArgsConstructor
+    private static class Match {
+
+        private final Category category;
+        private final int distance;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.financetracker;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// For local development and tests (sms.gateway=fake): messages are logged and kept in memory instead of sent.
+@Component
+@ConditionalOnProperty(name = "sms.gateway", havingValue = "fake")
+public class FakeSmsGateway extends AbstractSmsGateway {
+
+    private static final Logger logger = LogManager.getLogger(FakeSmsGateway.class);
+
+    private final List<SentSms> sentMessages = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected String getName() {
+        return "fake";
+    }
+
+    @Override
+    protected void deliver(String to, String text) {
+        logger.info("SMS to " + to + ": " + text);
+        sentMessages.add(new SentSms(to, text));
+    }
+
+    public List<SentSms> getSentMessages() {
+        return new ArrayList<>(sentMessages);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SentSms {
+
+        private final String to;
+        private final String text;
+    }
+}
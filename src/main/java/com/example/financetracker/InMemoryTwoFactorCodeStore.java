@@ -0,0 +1,100 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.exceptions.UnauthorizedException;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+@Component
+@ConditionalOnProperty(name = "two-factor.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTwoFactorCodeStore implements TwoFactorCodeStore {
+
+    @Value("${two-factor.code-ttl-minutes:5}")
+    private long ttlMinutes;
+
+    @Value("${two-factor.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${two-factor.memory.max-entries:100000}")
+    private int maxEntries;
+
+    // Insertion-ordered and every code lives equally long, so iteration starts from the code that expires first.
+    // That is also the one given up when a login storm fills the store.
+    private final LinkedHashMap<Integer, PendingCode> codes = new LinkedHashMap<>();
+    private final LongSupplier clock;
+
+    public InMemoryTwoFactorCodeStore() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryTwoFactorCodeStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void put(int userId, String code) {
+        long now = clock.getAsLong();
+        synchronized (codes) {
+            PendingCode previous = codes.remove(userId);
+            int attempts = previous != null && previous.expiresAt > now ? previous.attempts : 0;
+            codes.put(userId, new PendingCode(code, now + ttlMinutes * 60_000, attempts));
+            Iterator<PendingCode> iterator = codes.values().iterator();
+            while (iterator.hasNext()) {
+                PendingCode eldest = iterator.next();
+                if (codes.size() <= maxEntries && eldest.expiresAt > now) {
+                    break;
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void verify(int userId, Predicate<String> matcher) {
+        synchronized (codes) {
+            PendingCode pending = codes.get(userId);
+            if (pending == null) {
+                throw new UnauthorizedException("Confirmation code is invalid.");
+            }
+            if (clock.getAsLong() > pending.expiresAt) {
+                codes.remove(userId);
+                throw new UnauthorizedException("Confirmation code is expired");
+            }
+            if (pending.attempts >= maxAttempts) {
+                throw new UnauthorizedException("Too many invalid confirmation codes, try again later.");
+            }
+            if (!matcher.test(pending.code)) {
+                pending.attempts++;
+                throw new UnauthorizedException("Confirmation code is invalid.");
+            }
+            codes.remove(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${two-factor.memory.sweep-ms:60000}")
+    public void removeExpired() {
+        long now = clock.getAsLong();
+        synchronized (codes) {
+            Iterator<Map.Entry<Integer, PendingCode>> iterator = codes.entrySet().iterator();
+            while (iterator.hasNext() && iterator.next().getValue().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingCode {
+
+        private final String code;
+        private final long expiresAt;
+        private int attempts;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.exceptions.UnauthorizedException;
+import jakarta.transaction.Transactional;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+// For clusters without sticky sessions: the code is confirmed on whichever node gets the request.
+// Uses its own narrow table, so the users row is still left alone.
+@Component
+@ConditionalOnProperty(name = "two-factor.store", havingValue = "jdbc")
+public class JdbcTwoFactorCodeStore implements TwoFactorCodeStore {
+
+    // attempts is assigned first, while expires_at still holds the previous login's expiry
+    private static final String UPSERT_CODE = "INSERT INTO two_factor_codes (user_id, code, expires_at, attempts) " +
+            "VALUES (:userId, :code, :expiresAt, 0) " +
+            "ON DUPLICATE KEY UPDATE attempts = IF(expires_at >= :now, attempts, 0), code = VALUES(code), " +
+            "expires_at = VALUES(expires_at)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${two-factor.code-ttl-minutes:5}")
+    private long ttlMinutes;
+
+    @Value("${two-factor.max-attempts:5}")
+    private int maxAttempts;
+
+    @Override
+    public void put(int userId, String code) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(UPSERT_CODE, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("code", code)
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("expiresAt", Timestamp.valueOf(now.plusMinutes(ttlMinutes))));
+    }
+
+    // the attempt counter has to survive the exception that reports the wrong code
+    @Override
+    @Transactional(dontRollbackOn = UnauthorizedException.class)
+    public void verify(int userId, Predicate<String> matcher) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        List<PendingCode> rows = jdbcTemplate.query(
+                "SELECT code, expires_at, attempts FROM two_factor_codes WHERE user_id = :userId FOR UPDATE", params,
+                (rs, i) -> new PendingCode(rs.getString("code"), rs.getTimestamp("expires_at").toLocalDateTime(),
+                        rs.getInt("attempts")));
+        if (rows.isEmpty()) {
+            throw new UnauthorizedException("Confirmation code is invalid.");
+        }
+        PendingCode pending = rows.get(0);
+        if (LocalDateTime.now().isAfter(pending.expiresAt)) {
+            jdbcTemplate.update("DELETE FROM two_factor_codes WHERE user_id = :userId", params);
+            throw new UnauthorizedException("Confirmation code is expired");
+        }
+        if (pending.attempts >= maxAttempts) {
+            throw new UnauthorizedException("Too many invalid confirmation codes, try again later.");
+        }
+        if (!matcher.test(pending.code)) {
+            jdbcTemplate.update("UPDATE two_factor_codes SET attempts = attempts + 1 WHERE user_id = :userId", params);
+            throw new UnauthorizedException("Confirmation code is invalid.");
+        }
+        jdbcTemplate.update("DELETE FROM two_factor_codes WHERE user_id = :userId", params);
+    }
+
+    @Scheduled(fixedDelayString = "${two-factor.jdbc.cleanup-ms:600000}")
+    public void cleanExpiredCodes() {
+        scheduledJobRunner.run(ScheduledJob.TWO_FACTOR_CODES_CLEANUP, () -> jdbcTemplate.update(
+                "DELETE FROM two_factor_codes WHERE expires_at < :now",
+                new MapSqlParameterSource("now", Timestamp.valueOf(LocalDateTime.now()))));
+    }
+
+    @AllArgsConstructor
+    private static class PendingCode {
+
+        private final String code;
+        private final LocalDateTime expiresAt;
+        private final int attempts;
+    }
+}
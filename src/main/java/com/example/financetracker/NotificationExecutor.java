@@ -0,0 +1,115 @@
+package com.example.financetracker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends emails and SMS off the request thread on a fixed pool with a bounded queue. When the queue is full the
+// submitting thread sends the notification itself, so a login storm slows its own requests down instead of
+// piling up threads or silently dropping 2FA codes. Failed sends are retried with exponential backoff.
+@Component
+public class NotificationExecutor {
+
+    private static final Logger logger = LogManager.getLogger(NotificationExecutor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.threads:4}")
+    private int threads;
+
+    @Value("${notifications.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${notifications.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${notifications.retry-delay-ms:2000}")
+    private long retryDelayMs;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+    private Counter callerRuns;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        callerRuns = meterRegistry.counter("notifications.caller.runs");
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "notification-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, e) -> {
+                    if (!e.isShutdown()) {
+                        callerRuns.increment();
+                        r.run();
+                    }
+                });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("notifications.queue.depth", executor, e -> e.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        try {
+            // give the queued 2FA codes and alerts a moment to go out
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    public void submit(String type, Runnable notification) {
+        executor.execute(() -> send(type, notification, 1));
+    }
+
+    private void send(String type, Runnable notification, int attempt) {
+        long start = System.nanoTime();
+        try {
+            notification.run();
+            record(type, "success", start);
+        } catch (RuntimeException e) {
+            record(type, "failure", start);
+            if (attempt >= maxAttempts) {
+                logger.error("Sending " + type + " failed after " + attempt + " attempts: " + e.getMessage());
+                return;
+            }
+            long delay = retryDelayMs << (attempt - 1);
+            logger.warn("Sending " + type + " failed, retrying in " + delay + " ms: " + e.getMessage());
+            try {
+                retryScheduler.schedule(() -> executor.execute(() -> send(type, notification, attempt + 1)),
+                        delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                logger.error("Sending " + type + " dropped on shutdown");
+            }
+        }
+    }
+
+    private void record(String type, String outcome, long start) {
+        Timer.builder("notifications.send")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
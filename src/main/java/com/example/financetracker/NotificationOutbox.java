@@ -0,0 +1,177 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.OutboxNotification;
+import com.example.financetracker.service.NotificationOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Emails are written to the notification_outbox table inside the caller's transaction and delivered by a
+// dispatcher thread in batches, each batch over a single SMTP connection. A commit wakes the dispatcher up,
+// the poll interval covers emails written by other nodes and retries that come due.
+@Component
+public class NotificationOutbox {
+
+    private static final Logger logger = LogManager.getLogger(NotificationOutbox.class);
+    private static final String FROM = "finance.tracker.app2023@gmail.com";
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.poll-ms:5000}")
+    private long pollMs;
+
+    private final Object signal = new Object();
+    private boolean signalled;
+    private volatile boolean running;
+    private Thread thread;
+    private Counter sentCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        sentCounter = meterRegistry.counter("notifications.outbox.sent");
+        failedCounter = meterRegistry.counter("notifications.outbox.failed");
+        running = true;
+        thread = new Thread(this::dispatch, "notification-outbox");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    public void sendEmail(String recipient, String subject, String body) {
+        notificationOutboxService.enqueueEmail(recipient, subject, body);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (signal) {
+            signalled = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                // a full batch means there is probably more waiting, so the next one is claimed straight away
+                if (dispatchBatch() < batchSize) {
+                    awaitSignal();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Dispatching the notification outbox failed: " + e.getMessage());
+                try {
+                    awaitSignal();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void awaitSignal() throws InterruptedException {
+        synchronized (signal) {
+            if (!signalled) {
+                signal.wait(pollMs);
+            }
+            signalled = false;
+        }
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxNotification> batch = notificationOutboxService.claimPending(now, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxNotification notification = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(FROM);
+            message.setTo(notification.getRecipient());
+            message.setSubject(notification.getSubject());
+            message.setText(notification.getBody());
+            messages[i] = message;
+        }
+        Map<Object, Exception> failedMessages = new HashMap<>();
+        try {
+            javaMailSender.send(messages);
+        } catch (MailSendException e) {
+            failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                failedMessages = failAll(messages, e);
+            }
+        } catch (MailException e) {
+            failedMessages = failAll(messages, e);
+        }
+
+        List<Long> sent = new ArrayList<>();
+        Map<Long, String> failed = new HashMap<>();
+        for (int i = 0; i < messages.length; i++) {
+            Exception error = failedMessages.get(messages[i]);
+            if (error == null) {
+                sent.add(batch.get(i).getId());
+            } else {
+                failed.put(batch.get(i).getId(), error.getMessage());
+            }
+        }
+        LocalDateTime finishedAt = LocalDateTime.now();
+        notificationOutboxService.markSent(sent, finishedAt);
+        if (!failed.isEmpty()) {
+            logger.warn("Could not send " + failed.size() + " of " + batch.size() + " outbox emails, they will be retried");
+            notificationOutboxService.markFailed(failed, finishedAt);
+        }
+        sentCounter.increment(sent.size());
+        failedCounter.increment(failed.size());
+        return batch.size();
+    }
+
+    private Map<Object, Exception> failAll(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failedMessages = new HashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failedMessages.put(message, e);
+        }
+        return failedMessages;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.PlannedPaymentRunDTO;
+import com.example.financetracker.model.repositories.PlannedPaymentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Keeps the planned payments that come due within the next window in a priority queue and runs the
+// processing task when the earliest one is due, instead of waiting for the next poll of the table.
+@Component
+public class PlannedPaymentTimer {
+
+    private static final Logger logger = LogManager.getLogger(PlannedPaymentTimer.class);
+
+    @Autowired
+    private PlannedPaymentRepository plannedPaymentRepository;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${planned-payments.timer.window-hours:24}")
+    private int windowHours;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparing((Entry e) -> e.dueAt));
+    // planned payment id -> due time; queue entries that no longer match are stale and skipped
+    private final Map<Integer, LocalDateTime> scheduled = new HashMap<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    public synchronized void start(Runnable task) {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(() -> dispatch(task), "planned-payment-timer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${planned-payments.timer.reload-ms:3600000}")
+    public void scheduleReload() {
+        scheduledJobRunner.run(ScheduledJob.PLANNED_PAYMENT_TIMER_RELOAD, this::reload);
+    }
+
+    public int reload() {
+        List<PlannedPaymentRunDTO> runs = plannedPaymentRepository.findRunsBefore(LocalDateTime.now().plusHours(windowHours));
+        synchronized (queue) {
+            queue.clear();
+            scheduled.clear();
+            for (PlannedPaymentRunDTO run : runs) {
+                scheduled.put(run.getId(), run.getNextRunAt());
+                queue.add(new Entry(run.getId(), run.getNextRunAt()));
+            }
+            queue.notifyAll();
+        }
+        return runs.size();
+    }
+
+    // Called when a planned payment is created, edited or posted. Inside a transaction it only takes
+    // effect after commit, so the task never fires for a row other nodes cannot see yet.
+    public void schedule(int plannedPaymentId, LocalDateTime dueAt) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doSchedule(plannedPaymentId, dueAt);
+                }
+            });
+        } else {
+            doSchedule(plannedPaymentId, dueAt);
+        }
+    }
+
+    public void cancel(int plannedPaymentId) {
+        synchronized (queue) {
+            scheduled.remove(plannedPaymentId);
+        }
+    }
+
+    private void doSchedule(int plannedPaymentId, LocalDateTime dueAt) {
+        synchronized (queue) {
+            if (dueAt == null || dueAt.isAfter(LocalDateTime.now().plusHours(windowHours))) {
+                // beyond the window, the next reload picks it up
+                scheduled.remove(plannedPaymentId);
+                return;
+            }
+            scheduled.put(plannedPaymentId, dueAt);
+            queue.add(new Entry(plannedPaymentId, dueAt));
+            queue.notifyAll();
+        }
+    }
+
+    private void dispatch(Runnable task) {
+        while (running) {
+            try {
+                awaitDue();
+                task.run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Processing planned payments from the timer failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // blocks until the earliest live entry is due, then drops every entry that is due by now
+    private void awaitDue() throws InterruptedException {
+        synchronized (queue) {
+            while (true) {
+                Entry head = queue.peek();
+                if (head == null) {
+                    queue.wait();
+                    continue;
+                }
+                if (!head.dueAt.equals(scheduled.get(head.id))) {
+                    queue.poll();
+                    continue;
+                }
+                long delay = Duration.between(LocalDateTime.now(), head.dueAt).toMillis();
+                if (delay <= 0) {
+                    break;
+                }
+                queue.wait(delay);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            while (!queue.isEmpty() && !queue.peek().dueAt.isAfter(now)) {
+                Entry entry = queue.poll();
+                scheduled.remove(entry.id, entry.dueAt);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+
+        private final int id;
+        private final LocalDateTime dueAt;
+    }
+}
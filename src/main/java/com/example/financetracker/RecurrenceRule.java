@@ -0,0 +1,315 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.Frequency.FrequencyType;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import lombok.AllArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Predicate;
+
+// A subset of RFC 5545 RRULE: FREQ, INTERVAL, BYDAY (with ordinals for MONTHLY, e.g. -1FR), BYMONTHDAY,
+// BYSETPOS, COUNT and UNTIL. The last business day of a month is FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1.
+// Occurrences are generated period by period from the series start, and without COUNT the search jumps
+// straight to the period of the requested date instead of stepping through every earlier one.
+public class RecurrenceRule {
+
+    // a rule whose filters match nothing (e.g. BYSETPOS=6 with a single BYDAY) must not loop forever
+    private static final int MAX_EMPTY_PERIODS = 1000;
+    // keeps period arithmetic far from int overflow and the LocalDate range, and bounds the walk a COUNT rule
+    // makes from the series start
+    private static final int MAX_INTERVAL = 1000;
+    private static final int MAX_COUNT = 10000;
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY,
+            "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+
+    private final FrequencyType frequency;
+    private final int interval;
+    private final List<WeekdayNum> byDay;
+    private final List<Integer> byMonthDay;
+    private final List<Integer> bySetPos;
+    private final Integer count;
+    private final LocalDateTime until;
+
+    private RecurrenceRule(FrequencyType frequency, int interval, List<WeekdayNum> byDay, List<Integer> byMonthDay,
+                           List<Integer> bySetPos, Integer count, LocalDateTime until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.byMonthDay = byMonthDay;
+        this.bySetPos = bySetPos;
+        this.count = count;
+        this.until = until;
+    }
+
+    public static RecurrenceRule of(FrequencyType frequency) {
+        return new RecurrenceRule(frequency, 1, List.of(), List.of(), List.of(), null, null);
+    }
+
+    public static RecurrenceRule parse(String rule) {
+        String value = rule.trim();
+        if (value.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            value = value.substring(6);
+        }
+        FrequencyType frequency = null;
+        int interval = 1;
+        List<WeekdayNum> byDay = new ArrayList<>();
+        List<Integer> byMonthDay = new ArrayList<>();
+        List<Integer> bySetPos = new ArrayList<>();
+        Integer count = null;
+        LocalDateTime until = null;
+        try {
+            for (String part : value.split(";")) {
+                String[] keyValue = part.split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new BadRequestException("Invalid recurrence rule: " + rule);
+                }
+                String key = keyValue[0].trim().toUpperCase(Locale.ROOT);
+                String partValue = keyValue[1].trim().toUpperCase(Locale.ROOT);
+                switch (key) {
+                    case "FREQ" -> frequency = FrequencyType.valueOf(partValue);
+                    case "INTERVAL" -> interval = Integer.parseInt(partValue);
+                    case "COUNT" -> count = Integer.parseInt(partValue);
+                    case "UNTIL" -> until = parseUntil(partValue);
+                    case "BYDAY" -> {
+                        for (String day : partValue.split(",")) {
+                            byDay.add(parseWeekdayNum(day, rule));
+                        }
+                    }
+                    case "BYMONTHDAY" -> {
+                        for (String day : partValue.split(",")) {
+                            byMonthDay.add(Integer.parseInt(day));
+                        }
+                    }
+                    case "BYSETPOS" -> {
+                        for (String position : partValue.split(",")) {
+                            bySetPos.add(Integer.parseInt(position));
+                        }
+                    }
+                    default -> throw new BadRequestException("Unsupported recurrence rule part: " + key);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid recurrence rule: " + rule);
+        }
+        if (frequency == null || interval < 1 || (count != null && count < 1)) {
+            throw new BadRequestException("Invalid recurrence rule: " + rule);
+        }
+        if (interval > MAX_INTERVAL) {
+            throw new BadRequestException("INTERVAL cannot be more than " + MAX_INTERVAL + ": " + rule);
+        }
+        if (count != null && count > MAX_COUNT) {
+            throw new BadRequestException("COUNT cannot be more than " + MAX_COUNT + ": " + rule);
+        }
+        for (int day : byMonthDay) {
+            if (day == 0 || day < -31 || day > 31) {
+                throw new BadRequestException("Invalid recurrence rule: " + rule);
+            }
+        }
+        for (WeekdayNum weekdayNum : byDay) {
+            if (weekdayNum.ordinal != 0 && frequency != FrequencyType.MONTHLY) {
+                throw new BadRequestException("Numbered BYDAY is only supported with FREQ=MONTHLY: " + rule);
+            }
+        }
+        if (!byMonthDay.isEmpty() && frequency != FrequencyType.MONTHLY) {
+            throw new BadRequestException("BYMONTHDAY is only supported with FREQ=MONTHLY: " + rule);
+        }
+        if (!byDay.isEmpty() && frequency == FrequencyType.YEARLY) {
+            throw new BadRequestException("BYDAY is not supported with FREQ=YEARLY: " + rule);
+        }
+        if (bySetPos.contains(0)) {
+            throw new BadRequestException("Invalid recurrence rule: " + rule);
+        }
+
+        return new RecurrenceRule(frequency, interval, byDay, byMonthDay, bySetPos, count, until);
+    }
+
+    // the first occurrence of the series starting at start that is strictly after the given date, null once it has ended
+    public LocalDateTime next(LocalDateTime start, LocalDateTime after) {
+        LocalDateTime[] result = new LocalDateTime[1];
+        iterate(start, after.plusNanos(1), null, occurrence -> {
+            result[0] = occurrence;
+            return false;
+        });
+        return result[0];
+    }
+
+    // every occurrence of the series starting at start between from and to, both inclusive
+    public List<LocalDateTime> between(LocalDateTime start, LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        iterate(start, from, to, occurrence -> {
+            occurrences.add(occurrence);
+            return true;
+        });
+        return occurrences;
+    }
+
+    private void iterate(LocalDateTime start, LocalDateTime from, LocalDateTime to, Predicate<LocalDateTime> consumer) {
+        LocalDate startDate = start.toLocalDate();
+        long firstPeriod = 0;
+        // COUNT needs every earlier occurrence counted, otherwise skip to the period that holds from
+        if (count == null && from.isAfter(start)) {
+            firstPeriod = periodsBetween(startDate, from.toLocalDate()) / interval * interval;
+        }
+        int emitted = 0;
+        int emptyPeriods = 0;
+        for (long period = firstPeriod; emptyPeriods < MAX_EMPTY_PERIODS; period += interval) {
+            if (to != null && periodStart(startDate, period).isAfter(to.toLocalDate())) {
+                return;
+            }
+            List<LocalDate> days = candidates(startDate, period);
+            emptyPeriods = days.isEmpty() ? emptyPeriods + 1 : 0;
+            for (LocalDate day : days) {
+                LocalDateTime occurrence = day.atTime(start.toLocalTime());
+                if (occurrence.isBefore(start)) {
+                    continue;
+                }
+                if ((until != null && occurrence.isAfter(until)) || (to != null && occurrence.isAfter(to))) {
+                    return;
+                }
+                if (count != null && ++emitted > count) {
+                    return;
+                }
+                if (!occurrence.isBefore(from) && !consumer.test(occurrence)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private long periodsBetween(LocalDate startDate, LocalDate date) {
+        return switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(startDate, date);
+            case WEEKLY -> ChronoUnit.WEEKS.between(weekStart(startDate), weekStart(date));
+            case MONTHLY -> ChronoUnit.MONTHS.between(YearMonth.from(startDate), YearMonth.from(date));
+            case YEARLY -> date.getYear() - startDate.getYear();
+        };
+    }
+
+    private LocalDate periodStart(LocalDate startDate, long period) {
+        return switch (frequency) {
+            case DAILY -> startDate.plusDays(period);
+            case WEEKLY -> weekStart(startDate).plusWeeks(period);
+            case MONTHLY -> YearMonth.from(startDate).plusMonths(period).atDay(1);
+            case YEARLY -> LocalDate.of(startDate.getYear() + (int) period, 1, 1);
+        };
+    }
+
+    // the days of one period that match the BY* parts, sorted, with BYSETPOS applied
+    private List<LocalDate> candidates(LocalDate startDate, long period) {
+        List<LocalDate> days = new ArrayList<>();
+        switch (frequency) {
+            case DAILY -> {
+                LocalDate day = startDate.plusDays(period);
+                if (byDay.isEmpty() || byDay.stream().anyMatch(d -> d.day == day.getDayOfWeek())) {
+                    days.add(day);
+                }
+            }
+            case WEEKLY -> {
+                LocalDate weekStart = weekStart(startDate).plusWeeks(period);
+                if (byDay.isEmpty()) {
+                    days.add(weekStart.with(TemporalAdjusters.nextOrSame(startDate.getDayOfWeek())));
+                }
+                for (WeekdayNum weekdayNum : byDay) {
+                    days.add(weekStart.with(TemporalAdjusters.nextOrSame(weekdayNum.day)));
+                }
+            }
+            case MONTHLY -> {
+                YearMonth month = YearMonth.from(startDate).plusMonths(period);
+                if (!byDay.isEmpty()) {
+                    for (WeekdayNum weekdayNum : byDay) {
+                        addWeekdays(month, weekdayNum, days);
+                    }
+                    if (!byMonthDay.isEmpty()) {
+                        days.removeIf(day -> !byMonthDay.contains(day.getDayOfMonth())
+                                && !byMonthDay.contains(day.getDayOfMonth() - month.lengthOfMonth() - 1));
+                    }
+                } else if (!byMonthDay.isEmpty()) {
+                    for (int monthDay : byMonthDay) {
+                        int day = monthDay > 0 ? monthDay : month.lengthOfMonth() + monthDay + 1;
+                        if (day >= 1 && day <= month.lengthOfMonth()) {
+                            days.add(month.atDay(day));
+                        }
+                    }
+                } else {
+                    // like plusMonths, a start on the 31st falls on the last day of shorter months
+                    days.add(month.atDay(Math.min(startDate.getDayOfMonth(), month.lengthOfMonth())));
+                }
+            }
+            case YEARLY -> {
+                YearMonth month = YearMonth.of(startDate.getYear() + (int) period, startDate.getMonth());
+                days.add(month.atDay(Math.min(startDate.getDayOfMonth(), month.lengthOfMonth())));
+            }
+        }
+        List<LocalDate> sorted = new ArrayList<>(new TreeSet<>(days));
+        if (bySetPos.isEmpty()) {
+            return sorted;
+        }
+        List<LocalDate> selected = new ArrayList<>();
+        for (int position : bySetPos) {
+            int index = position > 0 ? position - 1 : sorted.size() + position;
+            if (index >= 0 && index < sorted.size()) {
+                selected.add(sorted.get(index));
+            }
+        }
+        Collections.sort(selected);
+        return selected;
+    }
+
+    private void addWeekdays(YearMonth month, WeekdayNum weekdayNum, List<LocalDate> days) {
+        if (weekdayNum.ordinal == 0) {
+            for (LocalDate day = month.atDay(1).with(TemporalAdjusters.nextOrSame(weekdayNum.day));
+                 !day.isAfter(month.atEndOfMonth()); day = day.plusWeeks(1)) {
+                days.add(day);
+            }
+            return;
+        }
+        LocalDate day = weekdayNum.ordinal > 0
+                ? month.atDay(1).with(TemporalAdjusters.nextOrSame(weekdayNum.day)).plusWeeks(weekdayNum.ordinal - 1)
+                : month.atEndOfMonth().with(TemporalAdjusters.previousOrSame(weekdayNum.day)).plusWeeks(weekdayNum.ordinal + 1);
+        if (YearMonth.from(day).equals(month)) {
+            days.add(day);
+        }
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static WeekdayNum parseWeekdayNum(String value, String rule) {
+        String day = value.trim();
+        if (day.length() < 2 || !DAYS.containsKey(day.substring(day.length() - 2))) {
+            throw new BadRequestException("Invalid recurrence rule: " + rule);
+        }
+        String ordinal = day.substring(0, day.length() - 2);
+        int number = ordinal.isEmpty() ? 0 : Integer.parseInt(ordinal.startsWith("+") ? ordinal.substring(1) : ordinal);
+        if (Math.abs(number) > 5) {
+            throw new BadRequestException("Invalid recurrence rule: " + rule);
+        }
+        return new WeekdayNum(number, DAYS.get(day.substring(day.length() - 2)));
+    }
+
+    private static LocalDateTime parseUntil(String value) {
+        String until = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        if (until.length() == 8) {
+            return LocalDate.parse(until, DateTimeFormatter.BASIC_ISO_DATE).atTime(23, 59, 59);
+        }
+        return LocalDateTime.parse(until, DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss"));
+    }
+
+    @AllArgsConstructor
+    private static class WeekdayNum {
+
+        // 0 means every such weekday of the period, otherwise the nth one (negative counts from the end)
+        private final int ordinal;
+        private final DayOfWeek day;
+    }
+}
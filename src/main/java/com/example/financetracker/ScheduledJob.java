@@ -0,0 +1,32 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.exceptions.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// The timeout can be overridden with jobs.<job name>.timeout-minutes
+@Getter
+@AllArgsConstructor
+public enum ScheduledJob {
+
+    PLANNED_PAYMENTS("planned-payments", 60),
+    PLANNED_PAYMENT_TIMER_RELOAD("planned-payment-timer-reload", 5),
+    EXPIRED_USERS_CLEANUP("expired-users-cleanup", 5),
+    MONTHLY_STATEMENTS("monthly-statements", 55),
+    EXPORTS_CLEANUP("exports-cleanup", 5),
+    OUTBOX_CLEANUP("outbox-cleanup", 10),
+    TWO_FACTOR_CODES_CLEANUP("two-factor-codes-cleanup", 5),
+    JOB_RUNS_CLEANUP("job-runs-cleanup", 10);
+
+    private final String jobName;
+    private final long defaultTimeoutMinutes;
+
+    public static ScheduledJob fromString(String jobName) {
+        for (ScheduledJob job : values()) {
+            if (job.jobName.equalsIgnoreCase(jobName)) {
+                return job;
+            }
+        }
+        throw new BadRequestException("Unknown job: " + jobName);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.JobRun;
+import com.example.financetracker.model.repositories.JobRunRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// The @Scheduled methods only hand their job over to this runner, so Spring's single scheduler thread is never
+// held by one job. Each job has its own thread, at most one run of a job is active at a time, and every run
+// is recorded in job_runs.
+@Component
+public class ScheduledJobRunner {
+
+    private static final Logger logger = LogManager.getLogger(ScheduledJobRunner.class);
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<ScheduledJob, ExecutorService> executors = new ConcurrentHashMap<>();
+    private final Map<ScheduledJob, AtomicBoolean> running = new ConcurrentHashMap<>();
+    private ScheduledExecutorService watchdog;
+    private String node;
+
+    @PostConstruct
+    public void init() {
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            node = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            node = "unknown";
+        }
+    }
+
+    // the host name this node records its work under
+    public String getNode() {
+        return node;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        executors.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    public void run(ScheduledJob job, Callable<Integer> task) {
+        AtomicBoolean jobRunning = running.computeIfAbsent(job, j -> new AtomicBoolean());
+        if (!jobRunning.compareAndSet(false, true)) {
+            logger.warn("Job " + job.getJobName() + " is still running, skipping this run");
+            return;
+        }
+        try {
+            JobRun run = new JobRun();
+            run.setJobName(job.getJobName());
+            run.setNode(node);
+            run.setStatus(JobRun.Status.RUNNING);
+            run.setStartedAt(LocalDateTime.now());
+            JobRun savedRun = jobRunRepository.save(run);
+            Future<?> future = executors.computeIfAbsent(job, this::createExecutor)
+                    .submit(() -> execute(savedRun, task, jobRunning));
+            long timeoutMinutes = getTimeoutMinutes(job);
+            watchdog.schedule(() -> {
+                if (!future.isDone()) {
+                    logger.error("Job " + job.getJobName() + " timed out after " + timeoutMinutes + " minutes");
+                    finish(savedRun, JobRun.Status.TIMED_OUT, null, "Timed out after " + timeoutMinutes + " minutes");
+                    future.cancel(true);
+                }
+            }, timeoutMinutes, TimeUnit.MINUTES);
+        } catch (RuntimeException e) {
+            jobRunning.set(false);
+            logger.error("Job " + job.getJobName() + " could not be started: " + e.getMessage());
+        }
+    }
+
+    // The running flag is only cleared here, when the job's thread is really done, so a run that ignored
+    // its timeout still keeps the next one from starting.
+    private void execute(JobRun run, Callable<Integer> task, AtomicBoolean jobRunning) {
+        try {
+            Integer processed = task.call();
+            finish(run, JobRun.Status.SUCCEEDED, processed, null);
+        } catch (Exception e) {
+            logger.error("Job " + run.getJobName() + " failed: ", e);
+            finish(run, JobRun.Status.FAILED, null, e.getMessage());
+        } finally {
+            jobRunning.set(false);
+        }
+    }
+
+    // whichever of the job and the watchdog gets here first records the outcome
+    private void finish(JobRun run, JobRun.Status status, Integer processed, String error) {
+        synchronized (run) {
+            if (run.getFinishedAt() != null) {
+                return;
+            }
+            run.setStatus(status);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMs(Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+            run.setProcessedCount(processed);
+            if (error != null && error.length() > 255) {
+                error = error.substring(0, 255);
+            }
+            run.setError(error);
+            try {
+                jobRunRepository.save(run);
+            } catch (RuntimeException e) {
+                logger.error("Could not record the run of job " + run.getJobName() + ": " + e.getMessage());
+            }
+        }
+        logger.info("Job " + run.getJobName() + " " + status + " in " + run.getDurationMs() + " ms"
+                + (processed != null ? ", processed: " + processed : ""));
+    }
+
+    private ExecutorService createExecutor(ScheduledJob job) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "job-" + job.getJobName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getTimeoutMinutes(ScheduledJob job) {
+        return environment.getProperty("jobs." + job.getJobName() + ".timeout-minutes", Long.class,
+                job.getDefaultTimeoutMinutes());
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.financetracker;
+
+public interface SmsGateway {
+
+    // Queues the message and returns at once; delivery, rate limiting and retries happen in the background.
+    void send(String to, String text);
+}
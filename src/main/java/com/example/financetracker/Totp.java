@@ -0,0 +1,111 @@
+package com.example.financetracker;
+
+import lombok.SneakyThrows;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+// RFC 6238 time-based one-time passwords as used by authenticator apps: HMAC-SHA1, 30 second steps, 6 digits.
+public class Totp {
+
+    public static final int STEP_SECONDS = 30;
+    private static final int DIGITS = 6;
+    private static final int MODULUS = 1_000_000;
+    private static final String BASE32_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567";
+    private static final SecureRandom random = new SecureRandom();
+
+    private Totp() {
+    }
+
+    // 160 random bits, the key length RFC 4226 recommends, Base32-encoded as authenticator apps expect it
+    public static String generateSecret() {
+        byte[] key = new byte[20];
+        random.nextBytes(key);
+        return encodeBase32(key);
+    }
+
+    public static String getUri(String issuer, String account, String secret) {
+        String label = URLEncoder.encode(issuer + ":" + account, StandardCharsets.UTF_8).replace("+", "%20");
+        return "otpauth://totp/" + label + "?secret=" + secret + "&issuer="
+                + URLEncoder.encode(issuer, StandardCharsets.UTF_8).replace("+", "%20")
+                + "&algorithm=SHA1&digits=" + DIGITS + "&period=" + STEP_SECONDS;
+    }
+
+    public static long getStep(long epochSeconds) {
+        return Math.floorDiv(epochSeconds, STEP_SECONDS);
+    }
+
+    // Returns the step the code belongs to, or -1 if it matches none of the steps within the allowed drift.
+    public static long verify(String secret, String code, long epochSeconds, int driftSteps) {
+        if (code == null || code.length() != DIGITS || !code.chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        byte[] key = decodeBase32(secret);
+        long current = getStep(epochSeconds);
+        for (long step = current - driftSteps; step <= current + driftSteps; step++) {
+            // constant-time comparison, so the response time gives nothing away about the expected code
+            if (MessageDigest.isEqual(generate(key, step).getBytes(StandardCharsets.US_ASCII),
+                    code.getBytes(StandardCharsets.US_ASCII))) {
+                return step;
+            }
+        }
+        return -1;
+    }
+
+    @SneakyThrows
+    static String generate(byte[] key, long step) {
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(key, "HmacSHA1"));
+        byte[] hash = mac.doFinal(new byte[]{
+                (byte) (step >>> 56), (byte) (step >>> 48), (byte) (step >>> 40), (byte) (step >>> 32),
+                (byte) (step >>> 24), (byte) (step >>> 16), (byte) (step >>> 8), (byte) step});
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24) | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8) | (hash[offset + 3] & 0xff);
+        String code = Integer.toString(binary % MODULUS);
+        return "0".repeat(DIGITS - code.length()) + code;
+    }
+
+    static String encodeBase32(byte[] data) {
+        StringBuilder sb = new StringBuilder();
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : data) {
+            buffer = (buffer << 8) | (b & 0xff);
+            bits += 8;
+            while (bits >= 5) {
+                sb.append(BASE32_ALPHABET.charAt((buffer >> (bits - 5)) & 0x1f));
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            sb.append(BASE32_ALPHABET.charAt((buffer << (5 - bits)) & 0x1f));
+        }
+        return sb.toString();
+    }
+
+    static byte[] decodeBase32(String encoded) {
+        String normalized = encoded.replace("=", "").replace(" ", "").toUpperCase();
+        byte[] result = new byte[normalized.length() * 5 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (char c : normalized.toCharArray()) {
+            int value = BASE32_ALPHABET.indexOf(c);
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid Base32 character: " + c);
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                result[index++] = (byte) (buffer >> (bits - 8));
+                bits -= 8;
+            }
+        }
+        return result;
+    }
+}
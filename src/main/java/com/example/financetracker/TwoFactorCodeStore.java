@@ -0,0 +1,26 @@
+package com.example.financetracker;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Predicate;
+
+// Pending 2FA logins, keyed by user id. An entry only exists after a successful password check and is what
+// allows the second factor to be confirmed. Chosen with two-factor.store: "memory" keeps them on this node,
+// "jdbc" shares them between nodes through the two_factor_codes table.
+public interface TwoFactorCodeStore {
+
+    // Replaces any pending login of the user. The code is null for authenticator app users, whose code is
+    // checked against their secret instead. Wrong guesses against a login that has not expired yet carry over,
+    // so logging in again does not buy more guesses.
+    void put(int userId, String code);
+
+    // Throws UnauthorizedException when there is no pending login, it has expired or the matcher rejects the
+    // submitted code; the matcher is given the stored code. A matching login is consumed. Once a login has been
+    // guessed wrong too often nothing is accepted until it expires, which every new login pushes back.
+    void verify(int userId, Predicate<String> matcher);
+
+    default void verify(int userId, String code) {
+        verify(userId, stored -> stored != null && code != null && MessageDigest.isEqual(
+                stored.getBytes(StandardCharsets.US_ASCII), code.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
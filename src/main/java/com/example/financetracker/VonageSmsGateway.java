@@ -0,0 +1,46 @@
+package com.example.financetracker;
+
+import com.vonage.client.VonageClient;
+import com.vonage.client.sms.MessageStatus;
+import com.vonage.client.sms.SmsClient;
+import com.vonage.client.sms.SmsSubmissionResponse;
+import com.vonage.client.sms.messages.TextMessage;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "sms.gateway", havingValue = "vonage", matchIfMissing = true)
+public class VonageSmsGateway extends AbstractSmsGateway {
+
+    @Value("${sms.api.key}")
+    private String apiKey;
+
+    @Value("${sms.api.secret}")
+    private String apiSecret;
+
+    @Value("${sms.from:Vonage APIs}")
+    private String from;
+
+    // built once, its HTTP client keeps connections to the API open between messages
+    private SmsClient smsClient;
+
+    @PostConstruct
+    public void init() {
+        smsClient = VonageClient.builder().apiKey(apiKey).apiSecret(apiSecret).build().getSmsClient();
+    }
+
+    @Override
+    protected String getName() {
+        return "vonage";
+    }
+
+    @Override
+    protected void deliver(String to, String text) {
+        SmsSubmissionResponse response = smsClient.submitMessage(new TextMessage(from, to, text));
+        if (response.getMessages().get(0).getStatus() != MessageStatus.OK) {
+            throw new IllegalStateException("Message failed with error: " + response.getMessages().get(0).getErrorText());
+        }
+    }
+}
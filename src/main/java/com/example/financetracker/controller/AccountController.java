@@ -1,22 +1,22 @@
 package com.example.financetracker.controller;
 
+import com.example.financetracker.AccountStatementFormat;
 import com.example.financetracker.model.DTOs.AccountDTOs.AccountWithOwnerDTO;
 import com.example.financetracker.model.DTOs.AccountDTOs.AccountWithoutOwnerDTO;
 import com.example.financetracker.model.DTOs.AccountDTOs.CreateAccountDTO;
 import com.example.financetracker.model.DTOs.AccountDTOs.EditAccountDTO;
-import com.example.financetracker.model.exceptions.BadRequestException;
 import com.example.financetracker.service.AccountService;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -57,44 +57,31 @@ public class AccountController extends AbstractController {
     }
 
     @GetMapping("/accounts/{id}/export")
-    public ResponseEntity<ByteArrayResource> exportAccountStatement(@PathVariable int id,
-                                                                    @RequestParam(name = "format", defaultValue = "JSON") @NotBlank String format,
-                                                                    @RequestParam(name = "start-date")
-                                                                    @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
-                                                                    LocalDateTime startDate, @RequestParam(name = "end-date")
-                                                                    @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
-                                                                    LocalDateTime endDate,
-                                                                    HttpSession s) {
+    public ResponseEntity<StreamingResponseBody> exportAccountStatement(@PathVariable int id,
+                                                                        @RequestParam(name = "format", defaultValue = "JSON") @NotBlank String format,
+                                                                        @RequestParam(name = "start-date")
+                                                                        @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
+                                                                        LocalDateTime startDate, @RequestParam(name = "end-date")
+                                                                        @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
+                                                                        LocalDateTime endDate,
+                                                                        HttpSession s) {
 
         int userId = getLoggedUserId(s);
-        ByteArrayOutputStream outputStream = null;
-        String fileName = null;
-        ByteArrayResource resource = null;
-        HttpHeaders headers = new HttpHeaders();
+        AccountStatementFormat statementFormat = AccountStatementFormat.fromString(format);
+        // validate before the response is committed, errors can't be reported once streaming has started
+        accountService.validateAccountStatement(id, startDate, endDate, userId);
 
-        if ("pdf".equalsIgnoreCase(format)) {
-            outputStream = accountService.generateAccountStatementPdf(id, startDate, endDate, userId);
-            fileName = "statement.pdf";
-            headers.setContentType(MediaType.APPLICATION_PDF);
-        } else if ("xlsx".equalsIgnoreCase(format)) {
-            outputStream = accountService.generateAccountStatementExcel(id, startDate, endDate, userId);
-            fileName = "statement.xlsx";
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        } else if ("json".equalsIgnoreCase(format)) {
-            outputStream = accountService.generateAccountStatementJson(id, startDate, endDate, userId);
-            fileName = "statement.json";
-            headers.setContentType(MediaType.APPLICATION_JSON);
-        } else {
-            throw new BadRequestException("Unsupported format: " + format);
-        }
-
-        resource = new ByteArrayResource(outputStream.toByteArray());
-        headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        InputStream cached = accountService.openCachedAccountStatement(id, statementFormat, startDate, endDate, userId);
+        StreamingResponseBody body = cached != null
+                ? outputStream -> {
+                    try (cached) {
+                        cached.transferTo(outputStream);
+                    }
+                }
+                : outputStream -> accountService.writeAccountStatement(id, statementFormat, startDate, endDate, userId, outputStream);
         return ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(resource.contentLength())
-                .contentType(headers.getContentType())
-                .body(resource);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + statementFormat.getFileName())
+                .contentType(MediaType.parseMediaType(statementFormat.getContentType()))
+                .body(body);
     }
 }
@@ -0,0 +1,24 @@
+package com.example.financetracker.controller;
+
+import com.example.financetracker.model.DTOs.AccountDTOs.AccountForecastDTO;
+import com.example.financetracker.service.AccountForecastService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class AccountForecastController extends AbstractController {
+
+    @Autowired
+    private AccountForecastService accountForecastService;
+
+    @GetMapping("/accounts/{id}/forecast")
+    public AccountForecastDTO getForecast(@PathVariable int id,
+                                          @RequestParam(name = "horizon", defaultValue = "90d") String horizon,
+                                          HttpSession s) {
+        return accountForecastService.getForecast(id, horizon, getLoggedUserId(s));
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.financetracker.controller;
 
+import com.example.financetracker.CategoryIconBundle;
+import com.example.financetracker.CategoryIconStore.CategoryIcon;
+import com.example.financetracker.model.DTOs.CategoryDTOs.CategoryIconManifestDTO;
 import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.exceptions.NotFoundException;
 import com.example.financetracker.service.CategoryService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.constraints.NotBlank;
@@ -13,11 +18,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.File;
-import java.nio.file.Files;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class CategoryController extends AbstractController{
@@ -48,12 +57,74 @@ public class CategoryController extends AbstractController{
         return categoryService.getAllCategories(pageable);
     }
 
+    @GetMapping("/categories/icons/manifest")
+    public ResponseEntity<CategoryIconManifestDTO> getIconManifest(HttpSession s) {
+        getLoggedUserId(s);
+        CategoryIconBundle.Snapshot snapshot = categoryService.getIconBundle();
+        return ResponseEntity.ok()
+                .eTag(snapshot.getManifest().getVersion())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(snapshot.getManifest());
+    }
+
+    @GetMapping("/categories/icons/bundle")
+    public ResponseEntity<byte[]> getIconBundle(@RequestParam(name = "v", required = false) String version, HttpSession s) {
+        getLoggedUserId(s);
+        CategoryIconBundle.Snapshot snapshot = categoryService.getIconBundle();
+        // only the current version is served, so a given url never changes content and can be cached for good
+        if (!snapshot.getManifest().getVersion().equals(version)) {
+            throw new NotFoundException("Icon bundle version not found, fetch the manifest again.");
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getManifest().getVersion())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(snapshot.getBundle().length)
+                .body(snapshot.getBundle());
+    }
+
     @SneakyThrows
     @GetMapping("/categories/{id}/image")
-    public void download(@PathVariable int id, HttpServletResponse response, HttpSession s){
+    public void download(@PathVariable int id, HttpServletRequest request, HttpServletResponse response, HttpSession s){
         getLoggedUserId(s);
         Category category = categoryService.getCategoryById(id);
-        File f = categoryService.download(category.getIconUrl());
-        Files.copy(f.toPath(), response.getOutputStream());
+        CategoryIcon icon = categoryService.download(category.getIconUrl());
+        response.setHeader(HttpHeaders.ETAG, icon.getETag());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=86400");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, icon.getLastModified());
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(icon.getETag()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        long start = 0;
+        long length = icon.getLength();
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(icon.getETag()))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // multi-range requests are answered with the whole icon, which the spec allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(icon.getLength());
+                    long end = ranges.get(0).getRangeEnd(icon.getLength());
+                    length = end - start + 1;
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + icon.getLength());
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + icon.getLength());
+                return;
+            }
+        }
+        response.setContentType(icon.getContentType());
+        if (icon.getContent() != null) {
+            response.setContentLengthLong(length);
+            response.getOutputStream().write(icon.getContent(), (int) start, (int) length);
+        } else {
+            sendFile(icon.getPath(), start, length, request, response);
+        }
     }
-}
\ No newline at end of file
+}
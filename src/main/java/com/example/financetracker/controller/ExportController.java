@@ -0,0 +1,99 @@
+package com.example.financetracker.controller;
+
+import com.example.financetracker.AccountStatementFormat;
+import com.example.financetracker.model.DTOs.ExportDTOs.ExportJobDTO;
+import com.example.financetracker.model.DTOs.ExportDTOs.StatementSubscriptionDTO;
+import com.example.financetracker.service.ExportJobService;
+import com.example.financetracker.service.MonthlyStatementService;
+import com.example.financetracker.service.UserExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+@RestController
+public class ExportController extends AbstractController {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private MonthlyStatementService monthlyStatementService;
+
+    @PostMapping("/accounts/{id}/exports")
+    public ExportJobDTO createExportJob(@PathVariable int id,
+                                        @RequestParam(name = "format", defaultValue = "JSON") @NotBlank String format,
+                                        @RequestParam(name = "start-date")
+                                        @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
+                                        LocalDateTime startDate, @RequestParam(name = "end-date")
+                                        @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
+                                        LocalDateTime endDate,
+                                        HttpSession s) {
+        return exportJobService.createExportJob(id, format, startDate, endDate, getLoggedUserId(s));
+    }
+
+    @GetMapping("/users/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportUserData(@PathVariable int id,
+                                                                @RequestParam(name = "format", defaultValue = "JSON") @NotBlank String format,
+                                                                @RequestParam(name = "start-date", required = false)
+                                                                @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
+                                                                LocalDateTime startDate, @RequestParam(name = "end-date", required = false)
+                                                                @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM-dd")
+                                                                LocalDateTime endDate,
+                                                                @RequestParam(name = "compression", defaultValue = "6") int compression,
+                                                                HttpSession s) {
+        int userId = getLoggedUserId(s);
+        AccountStatementFormat statementFormat = AccountStatementFormat.fromString(format);
+        userExportService.validateUserExport(id, userId, compression);
+        LocalDateTime start = startDate != null ? startDate : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+
+        StreamingResponseBody body = outputStream ->
+                userExportService.writeUserExport(id, statementFormat, start, end, compression, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=finance-tracker-export.zip")
+                .header(HttpHeaders.CONTENT_TYPE, "application/zip")
+                .body(body);
+    }
+
+    @PutMapping("/users/{id}/statement-subscription")
+    public void subscribeToMonthlyStatements(@PathVariable int id, @Valid @RequestBody StatementSubscriptionDTO dto, HttpSession s) {
+        monthlyStatementService.subscribe(id, dto.getFormat(), getLoggedUserId(s));
+    }
+
+    @DeleteMapping("/users/{id}/statement-subscription")
+    public void unsubscribeFromMonthlyStatements(@PathVariable int id, HttpSession s) {
+        monthlyStatementService.unsubscribe(id, getLoggedUserId(s));
+    }
+
+    @GetMapping("/exports/{jobId}")
+    public ExportJobDTO getExportJob(@PathVariable String jobId, HttpSession s) {
+        return exportJobService.getExportJob(jobId, getLoggedUserId(s));
+    }
+
+    @SneakyThrows
+    @GetMapping("/exports/{jobId}/file")
+    public void downloadExport(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response, HttpSession s) {
+        int userId = getLoggedUserId(s);
+        ExportJobDTO job = exportJobService.getExportJob(jobId, userId);
+        Path file = exportJobService.getExportFile(jobId, userId);
+        AccountStatementFormat format = AccountStatementFormat.valueOf(job.getFormat());
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + format.getFileName());
+        sendFile(file, 0, Files.size(file), request, response);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.financetracker.controller;
+
+import com.example.financetracker.model.DTOs.JobDTOs.JobRunDTO;
+import com.example.financetracker.service.JobRunService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class JobController extends AbstractController {
+
+    @Autowired
+    private JobRunService jobRunService;
+
+    @GetMapping("/admin/jobs/runs")
+    public Page<JobRunDTO> getJobRuns(@RequestParam(name = "job", required = false) String job,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size,
+                                      HttpSession s) {
+        Pageable pageable = PageRequest.of(page, size);
+
+        return jobRunService.getJobRuns(job, pageable, getLoggedUserId(s));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.financetracker.controller;
+
+import com.example.financetracker.model.DTOs.UserDTOs.TotpCodeDTO;
+import com.example.financetracker.model.DTOs.UserDTOs.TotpEnrolmentDTO;
+import com.example.financetracker.service.TotpService;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+public class TotpController extends AbstractController {
+
+    @Autowired
+    private TotpService totpService;
+
+    @PostMapping("/users/{id}/totp")
+    public TotpEnrolmentDTO enrol(@PathVariable int id, HttpSession s) {
+        return totpService.enrol(id, getLoggedUserId(s));
+    }
+
+    @PostMapping("/users/{id}/totp/confirm")
+    public ResponseEntity<String> confirmEnrolment(@PathVariable int id, @Valid @RequestBody TotpCodeDTO dto, HttpSession s) {
+        totpService.confirmEnrolment(id, dto.getCode(), getLoggedUserId(s));
+        return ResponseEntity.ok("Authenticator app enabled.");
+    }
+
+    @DeleteMapping("/users/{id}/totp")
+    public ResponseEntity<String> disable(@PathVariable int id, @Valid @RequestBody TotpCodeDTO dto, HttpSession s) {
+        totpService.disable(id, dto.getCode(), getLoggedUserId(s));
+        return ResponseEntity.ok("Authenticator app disabled.");
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.financetracker.model.DTOs.AccountDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountForecastDTO {
+
+    private int accountId;
+    private BigDecimal currentBalance;
+    private int horizonDays;
+    private LocalDate firstNegativeDate;
+    private BigDecimal lowestBalance;
+    private LocalDate lowestBalanceDate;
+    private List<AccountForecastDayDTO> days;
+}
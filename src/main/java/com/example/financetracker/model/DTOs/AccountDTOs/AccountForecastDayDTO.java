@@ -0,0 +1,21 @@
+package com.example.financetracker.model.DTOs.AccountDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountForecastDayDTO {
+
+    private LocalDate date;
+    private BigDecimal income;
+    private BigDecimal expense;
+    private BigDecimal balance;
+}
@@ -0,0 +1,19 @@
+package com.example.financetracker.model.DTOs.CategoryDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryIconEntryDTO {
+
+    private int categoryId;
+    private String name;
+    private String contentType;
+    private long offset;
+    private long length;
+}
@@ -0,0 +1,20 @@
+package com.example.financetracker.model.DTOs.CategoryDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryIconManifestDTO {
+
+    private String version;
+    private String bundleUrl;
+    private long bundleLength;
+    private List<CategoryIconEntryDTO> icons;
+}
@@ -0,0 +1,25 @@
+package com.example.financetracker.model.DTOs.ExportDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+
+    private String id;
+    private int accountId;
+    private String format;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private Long fileSize;
+    private String error;
+    private String downloadUrl;
+}
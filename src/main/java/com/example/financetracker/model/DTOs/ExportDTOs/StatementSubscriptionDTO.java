@@ -0,0 +1,17 @@
+package com.example.financetracker.model.DTOs.ExportDTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementSubscriptionDTO {
+
+    @NotBlank(message = "Format cannot be blank!")
+    private String format;
+}
@@ -0,0 +1,25 @@
+package com.example.financetracker.model.DTOs.JobDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRunDTO {
+
+    private int id;
+    private String jobName;
+    private String node;
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+    private Integer processedCount;
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.example.financetracker.model.DTOs.PlannedPaymentDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuePlannedPaymentDTO {
+
+    private int id;
+    private int ownerId;
+}
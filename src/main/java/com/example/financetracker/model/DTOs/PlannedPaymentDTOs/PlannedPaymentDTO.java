@@ -24,5 +24,6 @@ public class PlannedPaymentDTO {
     private AccountWithoutOwnerDTO account;
     private CategoryDTO category;
     private Frequency frequency;
+    private String recurrenceRule;
 
 }
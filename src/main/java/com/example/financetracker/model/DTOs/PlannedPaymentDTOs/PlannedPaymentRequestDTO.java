@@ -27,5 +27,7 @@ public class PlannedPaymentRequestDTO {
     private BigDecimal amount;
     private int categoryId;
     private int frequencyId;
+    @Size(max = 255, message = "Recurrence rule cannot be longer than 255 characters")
+    private String recurrenceRule;
 
 }
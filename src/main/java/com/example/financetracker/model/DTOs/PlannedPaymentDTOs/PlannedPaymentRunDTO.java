@@ -0,0 +1,18 @@
+package com.example.financetracker.model.DTOs.PlannedPaymentDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlannedPaymentRunDTO {
+
+    private int id;
+    private LocalDateTime nextRunAt;
+}
@@ -0,0 +1,23 @@
+package com.example.financetracker.model.DTOs.TransactionDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionStatementDTO {
+
+    private LocalDateTime date;
+    private int categoryId;
+    private String categoryName;
+    private String description;
+    private BigDecimal amount;
+    private String currencyKind;
+}
@@ -0,0 +1,15 @@
+package com.example.financetracker.model.DTOs.UserDTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@NoArgsConstructor
+public class TotpCodeDTO {
+
+    @NotBlank(message = "Code cannot be blank!")
+    private String code;
+}
@@ -0,0 +1,17 @@
+package com.example.financetracker.model.DTOs.UserDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotpEnrolmentDTO {
+
+    private String secret;
+    // otpauth:// URI, usually shown to the user as a QR code
+    private String uri;
+}
@@ -9,4 +9,6 @@ import lombok.Setter;
 @NoArgsConstructor
 public class UserFullInfoDTO extends UserSimpleDTO {
 
+    // tells the client to ask for the authenticator app code instead of the SMS code
+    private boolean totpEnabled;
 }
@@ -30,6 +30,10 @@ public class Account {
     @JoinColumn(name = "currency_id")
     private Currency currency;
 
+    // bumped on every transaction write, used to key cached statements
+    @Column(name = "data_version")
+    private long dataVersion;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,56 @@
+package com.example.financetracker.model.entities;
+
+import com.example.financetracker.AccountStatementFormat;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity(name = "export_jobs")
+public class ExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @Column(name = "owner_id")
+    private int ownerId;
+
+    @Column(name = "account_id")
+    private int accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format")
+    private AccountStatementFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Status status;
+
+    // the node whose executor runs the job
+    @Column(name = "node")
+    private String node;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // name of the finished file inside the spool directory
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "error")
+    private String error;
+}
@@ -0,0 +1,46 @@
+package com.example.financetracker.model.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity(name = "job_runs")
+public class JobRun {
+
+    public enum Status {
+        RUNNING, SUCCEEDED, FAILED, TIMED_OUT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(name = "node")
+    private String node;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Status status;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "processed_count")
+    private Integer processedCount;
+
+    @Column(name = "error")
+    private String error;
+}
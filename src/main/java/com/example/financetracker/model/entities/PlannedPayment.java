@@ -26,6 +26,10 @@ public class PlannedPayment {
     @Column(name = "date")
     private LocalDateTime date;
 
+    // when a node may next pick the payment up: its due date, or the end of the lease of the node processing it
+    @Column(name = "next_run_at")
+    private LocalDateTime nextRunAt;
+
     @Column(name = "amount")
     private BigDecimal amount;
 
@@ -37,6 +41,14 @@ public class PlannedPayment {
     @JoinColumn(name = "frequency_id")
     private Frequency frequency;
 
+    // optional RRULE, takes precedence over the frequency when set
+    @Column(name = "recurrence_rule")
+    private String recurrenceRule;
+
+    // the first occurrence the rule is anchored to, date moves on as occurrences are posted
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
     @Override
     public String toString() {
         return  "Planned payment data: " + "\n" +
@@ -0,0 +1,38 @@
+package com.example.financetracker.model.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity(name = "statement_deliveries")
+public class StatementDelivery {
+
+    public enum Status {
+        SENT, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    // the statement month, e.g. 2023-04
+    @Column(name = "period")
+    private String period;
+
+    @Column(name = "user_id")
+    private int userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Status status;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,45 @@
+package com.example.financetracker.model.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity(name = "statement_runs")
+public class StatementRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    // the statement month, e.g. 2023-04
+    @Column(name = "period")
+    private String period;
+
+    // users are processed in id order, everyone up to this id has been handled
+    @Column(name = "last_user_id")
+    private int lastUserId;
+
+    @Column(name = "sent_count")
+    private int sentCount;
+
+    // users whose statement failed and has not been sent by a retry yet
+    @Column(name = "failed_count")
+    private int failedCount;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // the node currently sending the run, it keeps the claim as long as it renews the lease
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
@@ -51,11 +51,16 @@ public class User {
     @Column(name = "phone_number")
     private String phoneNumber;
 
-    @Column(name = "sms_2FA_code")
-    private String sms2FACode;
+    // Base32 authenticator app secret, set on enrolment and only used for logins once confirmed
+    @Column(name = "totp_secret")
+    private String totpSecret;
 
-    @Column(name = "sms_exp_date_time")
-    private LocalDateTime smsExpirationDate;
+    @Column(name = "totp_enabled")
+    private boolean totpEnabled;
+
+    // statement format the user gets emailed every month, null when not subscribed
+    @Column(name = "monthly_statement_format")
+    private String monthlyStatementFormat;
 
     @OneToMany
     @JoinColumn(name = "owner_id")
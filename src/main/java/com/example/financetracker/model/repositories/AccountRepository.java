@@ -2,13 +2,18 @@ package com.example.financetracker.model.repositories;
 
 import com.example.financetracker.model.entities.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Integer> {
 
     List<Account> findAllByOwnerId(int id);
 
+    @Query("SELECT a.owner.id FROM accounts AS a WHERE a.id = ?1")
+    Optional<Integer> findOwnerIdById(int id);
+
 }
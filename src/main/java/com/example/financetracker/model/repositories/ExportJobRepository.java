@@ -0,0 +1,24 @@
+package com.example.financetracker.model.repositories;
+
+import com.example.financetracker.model.entities.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    List<ExportJob> findAllByFinishedAtBefore(LocalDateTime threshold);
+
+    // jobs a node had queued or running when it stopped will never finish
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE export_jobs SET status = 'FAILED', error = ?2, finished_at = ?3 " +
+            "WHERE node = ?1 AND status IN ('QUEUED', 'RUNNING')", nativeQuery = true)
+    int failUnfinished(String node, String error, LocalDateTime finishedAt);
+}
@@ -0,0 +1,34 @@
+package com.example.financetracker.model.repositories;
+
+import com.example.financetracker.model.entities.JobRun;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Integer> {
+
+    Page<JobRun> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    Page<JobRun> findAllByJobNameOrderByStartedAtDesc(String jobName, Pageable pageable);
+
+    // runs that found nothing to do go much sooner, frequent jobs would otherwise fill the table with them
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM job_runs WHERE finished_at IS NOT NULL AND (started_at < ?1 " +
+            "OR (status = 'SUCCEEDED' AND processed_count = 0 AND started_at < ?2)) LIMIT ?3", nativeQuery = true)
+    int deleteFinishedBefore(LocalDateTime threshold, LocalDateTime idleThreshold, int limit);
+
+    // a run still RUNNING past its job's timeout lost its node, the watchdog would have finished it otherwise
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE job_runs SET status = 'FAILED', finished_at = ?3, error = ?4 " +
+            "WHERE job_name = ?1 AND status = 'RUNNING' AND finished_at IS NULL AND started_at < ?2", nativeQuery = true)
+    int failAbandoned(String jobName, LocalDateTime startedBefore, LocalDateTime finishedAt, String error);
+}
@@ -0,0 +1,34 @@
+package com.example.financetracker.model.repositories;
+
+import com.example.financetracker.model.entities.OutboxNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxNotificationRepository extends JpaRepository<OutboxNotification, Long> {
+
+    // rows claimed by another node are skipped rather than waited for
+    @Query(value = "SELECT id FROM notification_outbox WHERE status = 'PENDING' AND next_attempt_at <= ?1 " +
+            "ORDER BY next_attempt_at LIMIT ?2 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockPendingIds(LocalDateTime now, int limit);
+
+    @Modifying
+    @Query("UPDATE notification_outbox AS n SET n.nextAttemptAt = ?2 WHERE n.id IN ?1")
+    void updateNextAttemptAt(List<Long> ids, LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE notification_outbox AS n SET n.status = ?2, n.sentAt = ?3, n.attempts = n.attempts + 1 " +
+            "WHERE n.id IN ?1")
+    void updateSent(List<Long> ids, OutboxNotification.Status status, LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notification_outbox WHERE status = 'SENT' AND sent_at < ?1 LIMIT ?2", nativeQuery = true)
+    int deleteSentBefore(LocalDateTime threshold, int limit);
+}
@@ -1,17 +1,39 @@
 package com.example.financetracker.model.repositories;
 
-import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.DuePlannedPaymentDTO;
+import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.PlannedPaymentRunDTO;
 import com.example.financetracker.model.entities.PlannedPayment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PlannedPaymentRepository extends JpaRepository<PlannedPayment, Integer> {
 
-    List<PlannedPayment> findAllByDate(LocalDateTime localDateTime);
+    // rows locked by another node's claim are skipped rather than waited for
+    @Query(value = "SELECT id FROM planned_payments WHERE next_run_at <= ?1 ORDER BY next_run_at LIMIT ?2 " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Integer> lockDueIds(LocalDateTime now, int limit);
 
-    Page<PlannedPayment> findAllByAccount(Account account, Pageable pageable);
+    @Modifying
+    @Query("UPDATE planned_payments AS p SET p.nextRunAt = ?2 WHERE p.id IN ?1")
+    void updateNextRunAt(List<Integer> ids, LocalDateTime nextRunAt);
+
+    @Query("SELECT new com.example.financetracker.model.DTOs.PlannedPaymentDTOs.DuePlannedPaymentDTO(p.id, a.owner.id) " +
+            "FROM planned_payments AS p JOIN p.account a WHERE p.id IN ?1 ORDER BY p.id")
+    List<DuePlannedPaymentDTO> findDueByIds(List<Integer> ids);
+
+    @Query("SELECT new com.example.financetracker.model.DTOs.PlannedPaymentDTOs.PlannedPaymentRunDTO(p.id, p.nextRunAt) " +
+            "FROM planned_payments AS p WHERE p.nextRunAt <= ?1")
+    List<PlannedPaymentRunDTO> findRunsBefore(LocalDateTime until);
+
+    Page<PlannedPayment> findAllByAccount_Id(int accountId, Pageable pageable);
+
+    List<PlannedPayment> findAllByAccount_Owner_Id(int ownerId);
+
+    List<PlannedPayment> findAllByAccount_IdAndNextRunAtNotNull(int accountId);
 }
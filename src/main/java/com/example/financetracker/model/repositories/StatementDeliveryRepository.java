@@ -0,0 +1,33 @@
+package com.example.financetracker.model.repositories;
+
+import com.example.financetracker.model.entities.StatementDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StatementDeliveryRepository extends JpaRepository<StatementDelivery, Integer> {
+
+    @Query(value = "SELECT user_id FROM statement_deliveries WHERE period = ?1 AND status = 'SENT' AND user_id IN ?2",
+            nativeQuery = true)
+    List<Integer> findSentUserIds(String period, Collection<Integer> userIds);
+
+    List<StatementDelivery> findAllByPeriodAndStatusAndAttemptsLessThanAndUpdatedAtBeforeOrderByUserIdAsc(
+            String period, StatementDelivery.Status status, int attempts, LocalDateTime updatedAt);
+
+    long countByPeriodAndStatusAndAttemptsLessThan(String period, StatementDelivery.Status status, int attempts);
+
+    // the unique key on (period, user_id) keeps one row per user, counting every attempt
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO statement_deliveries (period, user_id, status, attempts, updated_at) " +
+            "VALUES (?1, ?2, ?3, 1, ?4) ON DUPLICATE KEY UPDATE status = VALUES(status), attempts = attempts + 1, " +
+            "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int record(String period, int userId, String status, LocalDateTime updatedAt);
+}
@@ -0,0 +1,40 @@
+package com.example.financetracker.model.repositories;
+
+import com.example.financetracker.model.entities.StatementRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StatementRunRepository extends JpaRepository<StatementRun, Integer> {
+
+    Optional<StatementRun> findByPeriod(String period);
+
+    // the unique key on period makes this a no-op for every node but the first
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO statement_runs (period, last_user_id, sent_count, failed_count, started_at) " +
+            "VALUES (?1, 0, 0, 0, ?2)", nativeQuery = true)
+    int insertIfAbsent(String period, LocalDateTime startedAt);
+
+    // succeeds for one node only: the run must be unfinished and either unclaimed, already this node's,
+    // or left behind by a node whose lease ran out
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE statement_runs SET claimed_by = ?2, lease_until = ?4 WHERE period = ?1 " +
+            "AND completed_at IS NULL AND (claimed_by = ?2 OR lease_until IS NULL OR lease_until < ?3)", nativeQuery = true)
+    int claim(String period, String claimedBy, LocalDateTime now, LocalDateTime leaseUntil);
+
+    // writes the checkpoint and renews the lease, but only while the claim is still held
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE statement_runs SET last_user_id = ?3, sent_count = ?4, failed_count = ?5, lease_until = ?6, " +
+            "completed_at = ?7 WHERE id = ?1 AND claimed_by = ?2", nativeQuery = true)
+    int updateProgress(int id, String claimedBy, int lastUserId, int sentCount, int failedCount,
+                       LocalDateTime leaseUntil, LocalDateTime completedAt);
+}
@@ -1,21 +1,27 @@
 package com.example.financetracker.model.repositories;
 
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
 import com.example.financetracker.model.entities.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
 
-    Page<Transaction> findAllByAccount_Owner(User user, Pageable pageable);
+    Page<Transaction> findAllByAccount_OwnerId(int ownerId, Pageable pageable);
 
-    Page<Transaction> findAllByAccount(Account account, Pageable pageable);
+    Page<Transaction> findAllByAccount_Id(int accountId, Pageable pageable);
 
-    Page<Transaction> findByDateBetweenAndCategoryAndAccount(LocalDateTime startDate, LocalDateTime endDate,
-                                                             Category category, Account account, Pageable pageable);
+    Page<Transaction> findByDateBetweenAndCategoryAndAccount_Id(LocalDateTime startDate, LocalDateTime endDate,
+                                                                Category category, int accountId, Pageable pageable);
 
     List<Transaction> findAllByPlannedPayment(PlannedPayment plannedPayment);
 
@@ -26,4 +32,13 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
     List<Transaction> findAllByCategoryIdAndAccount_OwnerIdAndDateAfterAndDateBefore(int categoryId, int ownerId, LocalDateTime start, LocalDateTime end);
 
     List<Transaction> findAllByAccount_IdAndDateBetween(int id, LocalDateTime startDate, LocalDateTime endDate);
+
+    boolean existsByAccount_IdAndDateBetween(int id, LocalDateTime startDate, LocalDateTime endDate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO(" +
+            "t.date, c.id, c.name, t.description, t.amount, cur.kind) " +
+            "FROM transactions AS t JOIN t.category c JOIN t.currency cur " +
+            "WHERE t.account.id = ?1 AND t.date BETWEEN ?2 AND ?3 ORDER BY t.date, t.id")
+    Stream<TransactionStatementDTO> streamStatementByAccountId(int id, LocalDateTime startDate, LocalDateTime endDate);
 }
@@ -5,8 +5,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface TransferRepository extends JpaRepository<Transfer, Integer> {
 
     Page<Transfer> findAllByAccountSender_Owner_Id(int ownerId, Pageable pageable);
 
+    List<Transfer> findAllByAccountSender_Owner_Id(int ownerId);
+
 }
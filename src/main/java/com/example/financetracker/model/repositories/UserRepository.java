@@ -1,9 +1,12 @@
 package com.example.financetracker.model.repositories;
 
 import com.example.financetracker.model.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,11 +17,18 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
 
-    List<User> findByIsVerifiedAndExpirationDateBefore(Boolean isVerified, LocalDateTime localDateTime);
+    // one short transaction per batch, served by the (is_verified, validation_exp_date_time) index
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM users WHERE is_verified = false AND validation_exp_date_time < ?1 LIMIT ?2",
+            nativeQuery = true)
+    int deleteExpiredUnverifiedUsers(LocalDateTime now, int limit);
 
     Optional<User> findByUniqueCodeAndExpirationDateBefore(String code, LocalDateTime localDateTime);
 
     @Query("SELECT u FROM users AS u JOIN u.accounts a WHERE u.id = ?1 AND a.id = ?2")
     User findUserByIdAndAccountId(int id, int accountId);
 
+    List<User> findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+
 }
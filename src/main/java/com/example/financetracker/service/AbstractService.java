@@ -1,5 +1,7 @@
 package com.example.financetracker.service;
 
+import com.example.financetracker.AccountOwnershipCache;
+import com.example.financetracker.RecurrenceRule;
 import com.example.financetracker.model.entities.*;
 import com.example.financetracker.model.exceptions.NotFoundException;
 import com.example.financetracker.model.exceptions.UnauthorizedException;
@@ -12,6 +14,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -40,6 +43,9 @@ public abstract class AbstractService {
     @Autowired
     protected LoginLocationRepository loginLocationRepository;
 
+    @Autowired
+    protected AccountOwnershipCache accountOwnershipCache;
+
     @Autowired
     protected ModelMapper mapper;
 
@@ -69,6 +75,19 @@ public abstract class AbstractService {
         return plannedPaymentRepository.findById(id).orElseThrow(() -> new NotFoundException("Planned payment not found"));
     }
 
+    protected RecurrenceRule getRecurrenceRule(PlannedPayment plannedPayment) {
+        if (plannedPayment.getRecurrenceRule() != null) {
+            return RecurrenceRule.parse(plannedPayment.getRecurrenceRule());
+        }
+        return RecurrenceRule.of(plannedPayment.getFrequency().getFrequencyType());
+    }
+
+    // start_date was backfilled from date when it was added; a row written without it since then counts
+    // from its current date until posting pins that as its start
+    protected LocalDateTime getRecurrenceStart(PlannedPayment plannedPayment) {
+        return plannedPayment.getStartDate() != null ? plannedPayment.getStartDate() : plannedPayment.getDate();
+    }
+
     protected Currency getCurrencyById(int id){
         return currencyRepository.findById(id).orElseThrow(() -> new NotFoundException("Currency not found"));
     }
@@ -91,6 +110,16 @@ public abstract class AbstractService {
         }
     }
 
+    protected void checkAccountOwnership(int accountId, int loggedUserId) {
+        Integer ownerId = accountOwnershipCache.getOwnerId(accountId);
+        if (ownerId == null) {
+            ownerId = accountRepository.findOwnerIdById(accountId)
+                    .orElseThrow(() -> new NotFoundException("Account not found"));
+            accountOwnershipCache.put(accountId, ownerId);
+        }
+        checkUserAuthorization(ownerId, loggedUserId);
+    }
+
     protected void checkIfTransactionsExist(List<Transaction> transactions) {
         if (transactions.isEmpty()) {
             throw new NotFoundException("Transactions not found");
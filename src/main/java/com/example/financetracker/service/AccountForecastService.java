@@ -0,0 +1,103 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.RecurrenceRule;
+import com.example.financetracker.model.DTOs.AccountDTOs.AccountForecastDTO;
+import com.example.financetracker.model.DTOs.AccountDTOs.AccountForecastDayDTO;
+import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.entities.PlannedPayment;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+public class AccountForecastService extends AbstractService {
+
+    private static final Pattern HORIZON = Pattern.compile("(\\d+)([dwm]?)");
+
+    @Value("${accounts.forecast.max-horizon-days:366}")
+    private int maxHorizonDays;
+
+    // Every occurrence of the account's planned payments within the horizon is bucketed straight into its
+    // day, so the projection is one pass over the occurrences plus one over the days, with no sorting.
+    // Occurrences that are already due but not posted yet land on today.
+    public AccountForecastDTO getForecast(int accountId, String horizon, int loggedUserId) {
+        checkAccountOwnership(accountId, loggedUserId);
+        int horizonDays = parseHorizon(horizon);
+        Account account = getAccountById(accountId);
+        LocalDate today = LocalDate.now();
+        LocalDateTime end = today.plusDays(horizonDays).atTime(LocalTime.MAX);
+
+        BigDecimal[] income = new BigDecimal[horizonDays + 1];
+        BigDecimal[] expense = new BigDecimal[horizonDays + 1];
+        Arrays.fill(income, BigDecimal.ZERO);
+        Arrays.fill(expense, BigDecimal.ZERO);
+        for (PlannedPayment plannedPayment : plannedPaymentRepository.findAllByAccount_IdAndNextRunAtNotNull(accountId)) {
+            RecurrenceRule rule = getRecurrenceRule(plannedPayment);
+            boolean isIncome = plannedPayment.getCategory().getType() == Category.CategoryType.INCOME;
+            for (LocalDateTime occurrence : rule.between(getRecurrenceStart(plannedPayment), plannedPayment.getDate(), end)) {
+                int day = (int) Math.max(0, ChronoUnit.DAYS.between(today, occurrence.toLocalDate()));
+                if (isIncome) {
+                    income[day] = income[day].add(plannedPayment.getAmount());
+                } else {
+                    expense[day] = expense[day].add(plannedPayment.getAmount());
+                }
+            }
+        }
+
+        BigDecimal balance = account.getBalance();
+        BigDecimal lowestBalance = balance;
+        LocalDate lowestBalanceDate = today;
+        LocalDate firstNegativeDate = null;
+        List<AccountForecastDayDTO> days = new ArrayList<>(horizonDays + 1);
+        for (int day = 0; day <= horizonDays; day++) {
+            LocalDate date = today.plusDays(day);
+            balance = balance.add(income[day]).subtract(expense[day]);
+            days.add(new AccountForecastDayDTO(date, income[day], expense[day], balance));
+            if (balance.compareTo(lowestBalance) < 0) {
+                lowestBalance = balance;
+                lowestBalanceDate = date;
+            }
+            if (firstNegativeDate == null && balance.signum() < 0) {
+                firstNegativeDate = date;
+            }
+        }
+
+        return new AccountForecastDTO(accountId, account.getBalance(), horizonDays, firstNegativeDate,
+                lowestBalance, lowestBalanceDate, days);
+    }
+
+    // "90d", "12w", "3m" or a plain number of days
+    private int parseHorizon(String horizon) {
+        Matcher matcher = HORIZON.matcher(horizon.trim().toLowerCase());
+        if (!matcher.matches()) {
+            throw new BadRequestException("Invalid horizon: " + horizon);
+        }
+        // every unit is at least a day, so a larger amount is out of range before it is multiplied
+        String digits = matcher.group(1);
+        if (digits.length() > 9 || Integer.parseInt(digits) > maxHorizonDays) {
+            throw new BadRequestException("Horizon must be between 1 and " + maxHorizonDays + " days.");
+        }
+        int amount = Integer.parseInt(digits);
+        long days = switch (matcher.group(2)) {
+            case "w" -> amount * 7L;
+            case "m" -> ChronoUnit.DAYS.between(LocalDate.now(), LocalDate.now().plusMonths(amount));
+            default -> amount;
+        };
+        if (days < 1 || days > maxHorizonDays) {
+            throw new BadRequestException("Horizon must be between 1 and " + maxHorizonDays + " days.");
+        }
+        return (int) days;
+    }
+}
@@ -1,32 +1,37 @@
 package com.example.financetracker.service;
 
+import com.example.financetracker.AccountStatementCache;
+import com.example.financetracker.AccountStatementArrowGenerator;
+import com.example.financetracker.AccountStatementCsvGenerator;
 import com.example.financetracker.AccountStatementExcelGenerator;
+import com.example.financetracker.AccountStatementFormat;
+import com.example.financetracker.AccountStatementJsonGenerator;
 import com.example.financetracker.AccountStatementPdfGenerator;
 import com.example.financetracker.model.DTOs.AccountDTOs.AccountWithOwnerDTO;
 import com.example.financetracker.model.DTOs.AccountDTOs.AccountWithoutOwnerDTO;
 import com.example.financetracker.model.DTOs.AccountDTOs.CreateAccountDTO;
 import com.example.financetracker.model.DTOs.AccountDTOs.EditAccountDTO;
+import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionStatementDTO;
 import com.example.financetracker.model.entities.Account;
 import com.example.financetracker.model.entities.Currency;
-import com.example.financetracker.model.entities.Transaction;
 import com.example.financetracker.model.entities.User;
 import com.example.financetracker.model.exceptions.BadRequestException;
 import com.example.financetracker.model.exceptions.NotFoundException;
 import com.example.financetracker.model.repositories.AccountRepository;
 import com.example.financetracker.model.repositories.CurrencyRepository;
-import com.fatboyindustrial.gsonjavatime.Converters;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import jakarta.transaction.Transactional;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class AccountService extends AbstractService {
@@ -42,6 +47,21 @@ public class AccountService extends AbstractService {
     @Autowired
     private AccountStatementExcelGenerator accountStatementExcelGenerator;
 
+    @Autowired
+    private AccountStatementJsonGenerator accountStatementJsonGenerator;
+
+    @Autowired
+    private AccountStatementCsvGenerator accountStatementCsvGenerator;
+
+    @Autowired
+    private AccountStatementArrowGenerator accountStatementArrowGenerator;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountStatementCache accountStatementCache;
+
     public AccountWithOwnerDTO create(CreateAccountDTO dto, int userId) {
         Account account = new Account();
         account.setName(dto.getName());
@@ -114,50 +134,50 @@ public class AccountService extends AbstractService {
         Account account = optionalAccount.get();
         if (account.getOwner().getId() == userId) {
             accountRepository.deleteById(id);
+            accountOwnershipCache.evict(id);
         }
         logger.info("Deleted account: "+account.getId()+"\n"+account.toString());
 
         return mapper.map(account, AccountWithoutOwnerDTO.class);
     }
 
-    @SneakyThrows
-    public ByteArrayOutputStream generateAccountStatementPdf(int id, LocalDateTime startDate, LocalDateTime endDate, int loggedUserId) {
-        Account account = getAccountById(id);
-        User user = getUserById(loggedUserId);
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
-
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        return outputStream = accountStatementPdfGenerator.generatePdf(account, startDate, endDate, outputStream);
+    public void validateAccountStatement(int id, LocalDateTime startDate, LocalDateTime endDate, int loggedUserId) {
+        checkAccountOwnership(id, loggedUserId);
+        transactionService.validateStatementPeriod(id, startDate, endDate);
     }
 
-    @SneakyThrows
-    public ByteArrayOutputStream generateAccountStatementExcel(int id, LocalDateTime startDate, LocalDateTime endDate, int loggedUserId) {
+    // null when the statement is not cached, otherwise an open stream the caller has to close
+    public InputStream openCachedAccountStatement(int id, AccountStatementFormat format, LocalDateTime startDate,
+                                                  LocalDateTime endDate, int loggedUserId) {
         Account account = getAccountById(id);
-        User user = getUserById(loggedUserId);
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
-
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        return outputStream = accountStatementExcelGenerator.generateExcel(account, startDate, endDate, outputStream);
+        checkUserAuthorization(account.getOwner().getId(), loggedUserId);
+        return accountStatementCache.open(accountStatementCache.key(account, format, startDate, endDate));
     }
 
+    // Streams the statement straight from a database cursor into the output stream,
+    // so the caller must keep the stream open until this method returns.
+    // A copy is written to the statement cache and kept if generation completes.
     @SneakyThrows
-    public ByteArrayOutputStream generateAccountStatementJson(int id, LocalDateTime startDate, LocalDateTime endDate, int loggedUserId) {
+    @Transactional
+    public void writeAccountStatement(int id, AccountStatementFormat format, LocalDateTime startDate, LocalDateTime endDate,
+                                      int loggedUserId, OutputStream outputStream) {
         Account account = getAccountById(id);
-        User user = getUserById(loggedUserId);
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
-
-        List<Transaction> transactions = transactionRepository.findAllByAccount_IdAndDateBetween(id, startDate, endDate);
-        checkIfTransactionsExist(transactions);
-
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        Converters.registerLocalDateTime(gsonBuilder); // Added the LocalDateTime converter
-        gsonBuilder.excludeFieldsWithoutExposeAnnotation();
-        Gson gson = gsonBuilder.create();
-        String json = gson.toJson(transactions);
-
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        outputStream.write(json.getBytes());
-
-        return outputStream;
+        checkUserAuthorization(account.getOwner().getId(), loggedUserId);
+
+        String key = accountStatementCache.key(account, format, startDate, endDate);
+        try (AccountStatementCache.CacheWriter cacheWriter = accountStatementCache.newWriter(key);
+             Stream<TransactionStatementDTO> transactions =
+                     transactionRepository.streamStatementByAccountId(id, startDate, endDate)) {
+            OutputStream tee = cacheWriter.tee(outputStream);
+            switch (format) {
+                case PDF -> accountStatementPdfGenerator.generatePdf(account, startDate, endDate, transactions, tee);
+                case XLSX -> accountStatementExcelGenerator.generateExcel(account, transactions, tee);
+                case JSON -> accountStatementJsonGenerator.generateJson(transactions, tee);
+                case CSV -> accountStatementCsvGenerator.generateCsv(transactions, tee);
+                case ARROW -> accountStatementArrowGenerator.generateArrow(transactions, tee);
+            }
+            tee.flush();
+            cacheWriter.commit();
+        }
     }
 }
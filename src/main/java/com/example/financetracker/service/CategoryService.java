@@ -1,5 +1,9 @@
 package com.example.financetracker.service;
 
+import com.example.financetracker.CategoryIconBundle;
+import com.example.financetracker.CategoryIconStore;
+import com.example.financetracker.CategoryIconStore.CategoryIcon;
+import com.example.financetracker.CategorySearchIndex;
 import com.example.financetracker.model.entities.Category;
 import com.example.financetracker.model.exceptions.NotFoundException;
 import com.example.financetracker.model.repositories.CategoryRepository;
@@ -8,7 +12,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.util.List;
 
 @Service
@@ -17,6 +20,15 @@ public class CategoryService extends AbstractService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryIconStore categoryIconStore;
+
+    @Autowired
+    private CategoryIconBundle categoryIconBundle;
+
+    @Autowired
+    private CategorySearchIndex categorySearchIndex;
+
     public Category getCategoryById(int categoryId) {
         return categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new NotFoundException("Category not found!"));
@@ -31,20 +43,21 @@ public class CategoryService extends AbstractService {
     }
 
     public List<Category> filterCategory(String name) {
-        if(categoryRepository.findByName(name).size() != 0) {
-            return categoryRepository.findByName(name);
-        }else{
+        List<Category> categories = categorySearchIndex.search(name);
+        if (categories.isEmpty()) {
             throw new NotFoundException("Category not found");
         }
+        return categories;
     }
 
-    public File download(String fileName) {
-        fileName = "uploads" + File.separator + fileName;
-        File f = new File(fileName);
-        System.out.println(fileName);
-        if(f.exists()){
-            return f;
+    public CategoryIcon download(String fileName) {
+        if (fileName == null) {
+            throw new NotFoundException("File not found!");
         }
-        throw new NotFoundException("File not found!");
+        return categoryIconStore.getIcon(fileName);
+    }
+
+    public CategoryIconBundle.Snapshot getIconBundle() {
+        return categoryIconBundle.getSnapshot();
     }
 }
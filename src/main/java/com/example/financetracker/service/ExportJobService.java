@@ -0,0 +1,239 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.AccountStatementFormat;
+import com.example.financetracker.ScheduledJob;
+import com.example.financetracker.ScheduledJobRunner;
+import com.example.financetracker.model.DTOs.ExportDTOs.ExportJobDTO;
+import com.example.financetracker.model.entities.ExportJob;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import com.example.financetracker.model.exceptions.NotFoundException;
+import com.example.financetracker.model.repositories.ExportJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Jobs are kept in export_jobs, so any node can report on them, but each runs on the node that queued it.
+// Downloads from any node need exports.spool-dir to be storage shared by all nodes.
+@Service
+public class ExportJobService extends AbstractService {
+
+    private static final String FAILED_MESSAGE = "The export could not be created. Please try again.";
+    private static final String INTERRUPTED_MESSAGE = "The export was interrupted. Please try again.";
+    // <job id>.part while it is written, <job id>.<extension> when it is done
+    private static final Pattern JOB_FILE = Pattern.compile("([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})\\.(\\w+)");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${exports.spool-dir:exports}")
+    private String spoolDir;
+
+    @Value("${exports.threads:2}")
+    private int threads;
+
+    @Value("${exports.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${exports.max-jobs-per-user:2}")
+    private int maxJobsPerUser;
+
+    @Value("${exports.retention-minutes:60}")
+    private int retentionMinutes;
+
+    private final Map<Integer, AtomicInteger> activeJobsByUser = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Path spoolPath;
+
+    @PostConstruct
+    @SneakyThrows
+    public void init() {
+        spoolPath = Paths.get(spoolDir).toAbsolutePath();
+        Files.createDirectories(spoolPath);
+        int interrupted = exportJobRepository.failUnfinished(scheduledJobRunner.getNode(), INTERRUPTED_MESSAGE, LocalDateTime.now());
+        if (interrupted > 0) {
+            logger.warn("Marked " + interrupted + " export jobs interrupted by the last shutdown as failed");
+        }
+        deleteLeftoverFiles();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "export-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ExportJobDTO createExportJob(int accountId, String format, LocalDateTime startDate, LocalDateTime endDate, int loggedUserId) {
+        AccountStatementFormat statementFormat = AccountStatementFormat.fromString(format);
+        accountService.validateAccountStatement(accountId, startDate, endDate, loggedUserId);
+        AtomicInteger activeJobs = activeJobsByUser.computeIfAbsent(loggedUserId, id -> new AtomicInteger());
+        if (activeJobs.incrementAndGet() > maxJobsPerUser) {
+            activeJobs.decrementAndGet();
+            throw new BadRequestException("You already have " + maxJobsPerUser + " exports in progress. Please wait for them to finish.");
+        }
+        ExportJob job = new ExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setOwnerId(loggedUserId);
+        job.setAccountId(accountId);
+        job.setFormat(statementFormat);
+        job.setStatus(ExportJob.Status.QUEUED);
+        job.setNode(scheduledJobRunner.getNode());
+        job.setCreatedAt(LocalDateTime.now());
+        exportJobRepository.save(job);
+        try {
+            executor.execute(() -> run(job, startDate, endDate));
+        } catch (RejectedExecutionException e) {
+            exportJobRepository.deleteById(job.getId());
+            activeJobs.decrementAndGet();
+            throw new BadRequestException("Too many exports are queued. Please try again later.");
+        }
+        logger.info("Queued export job: " + job.getId() + " for account " + accountId);
+
+        return toDTO(job);
+    }
+
+    public ExportJobDTO getExportJob(String jobId, int loggedUserId) {
+        return toDTO(getOwnedJob(jobId, loggedUserId));
+    }
+
+    public Path getExportFile(String jobId, int loggedUserId) {
+        ExportJob job = getOwnedJob(jobId, loggedUserId);
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            throw new BadRequestException("The export is not ready yet.");
+        }
+        Path file = spoolPath.resolve(job.getFileName());
+        if (!Files.exists(file)) {
+            logger.warn("Export file of job " + jobId + " from node " + job.getNode() + " is missing from " + spoolPath);
+            throw new NotFoundException("The export file is no longer available.");
+        }
+        return file;
+    }
+
+    @Scheduled(fixedDelayString = "${exports.cleanup-ms:600000}")
+    public void cleanExpiredExports() {
+        scheduledJobRunner.run(ScheduledJob.EXPORTS_CLEANUP, this::deleteExpiredExports);
+    }
+
+    public int deleteExpiredExports() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(retentionMinutes);
+        int deleted = 0;
+        for (ExportJob job : exportJobRepository.findAllByFinishedAtBefore(threshold)) {
+            if (job.getFileName() != null) {
+                deleteQuietly(spoolPath.resolve(job.getFileName()));
+            }
+            exportJobRepository.deleteById(job.getId());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    private void run(ExportJob job, LocalDateTime startDate, LocalDateTime endDate) {
+        job.setStatus(ExportJob.Status.RUNNING);
+        exportJobRepository.save(job);
+        String fileName = job.getId() + "." + job.getFormat().getExtension();
+        Path partFile = spoolPath.resolve(job.getId() + ".part");
+        try {
+            try (InputStream cached = accountService.openCachedAccountStatement(job.getAccountId(), job.getFormat(),
+                    startDate, endDate, job.getOwnerId())) {
+                if (cached != null) {
+                    Files.copy(cached, partFile, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+                        accountService.writeAccountStatement(job.getAccountId(), job.getFormat(), startDate, endDate,
+                                job.getOwnerId(), outputStream);
+                    }
+                }
+            }
+            Path file = spoolPath.resolve(fileName);
+            Files.move(partFile, file, StandardCopyOption.ATOMIC_MOVE);
+            job.setFileName(fileName);
+            job.setFileSize(Files.size(file));
+            job.setStatus(ExportJob.Status.COMPLETED);
+            logger.info("Completed export job: " + job.getId() + ", " + job.getFileSize() + " bytes");
+        } catch (Exception e) {
+            logger.error("Export job " + job.getId() + " failed: ", e);
+            job.setError(FAILED_MESSAGE);
+            job.setStatus(ExportJob.Status.FAILED);
+            deleteQuietly(partFile);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            activeJobsByUser.get(job.getOwnerId()).decrementAndGet();
+            exportJobRepository.save(job);
+        }
+    }
+
+    // Files of jobs that are gone or failed are left behind by a crash or a failed delete. Part files of jobs
+    // still queued or running are kept, they can belong to another node sharing the spool directory.
+    private void deleteLeftoverFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolPath)) {
+            files.forEach(file -> {
+                Matcher matcher = JOB_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    return;
+                }
+                Optional<ExportJob> job = exportJobRepository.findById(matcher.group(1));
+                boolean keep = job.isPresent() && (matcher.group(2).equals("part")
+                        ? job.get().getStatus() == ExportJob.Status.QUEUED || job.get().getStatus() == ExportJob.Status.RUNNING
+                        : job.get().getStatus() == ExportJob.Status.COMPLETED);
+                if (!keep) {
+                    deleteQuietly(file);
+                }
+            });
+        }
+    }
+
+    private ExportJob getOwnedJob(String jobId, int loggedUserId) {
+        ExportJob job = exportJobRepository.findById(jobId).orElseThrow(() -> new NotFoundException("Export not found"));
+        checkUserAuthorization(job.getOwnerId(), loggedUserId);
+        return job;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete export file " + file + ": " + e.getMessage());
+        }
+    }
+
+    private ExportJobDTO toDTO(ExportJob job) {
+        ExportJob.Status status = job.getStatus();
+        String downloadUrl = status == ExportJob.Status.COMPLETED ? "/exports/" + job.getId() + "/file" : null;
+        return new ExportJobDTO(job.getId(), job.getAccountId(), job.getFormat().name(), status.name(), job.getCreatedAt(),
+                job.getFinishedAt(), job.getFileSize(), job.getError(), downloadUrl);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.ScheduledJob;
+import com.example.financetracker.ScheduledJobRunner;
+import com.example.financetracker.model.DTOs.JobDTOs.JobRunDTO;
+import com.example.financetracker.model.entities.JobRun;
+import com.example.financetracker.model.exceptions.UnauthorizedException;
+import com.example.financetracker.model.repositories.JobRunRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class JobRunService extends AbstractService {
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${jobs.runs.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${jobs.runs.idle-retention-hours:24}")
+    private int idleRetentionHours;
+
+    // there are no roles yet, the administrators are listed in the configuration
+    @Value("${jobs.admin-user-ids:}")
+    private List<Integer> adminUserIds;
+
+    public Page<JobRunDTO> getJobRuns(String jobName, Pageable pageable, int loggedUserId) {
+        if (!adminUserIds.contains(loggedUserId)) {
+            throw new UnauthorizedException("You are not authorized to perform this action.");
+        }
+        Page<JobRun> runs = jobName == null
+                ? jobRunRepository.findAllByOrderByStartedAtDesc(pageable)
+                : jobRunRepository.findAllByJobNameOrderByStartedAtDesc(ScheduledJob.fromString(jobName).getJobName(), pageable);
+
+        return runs.map(run -> mapper.map(run, JobRunDTO.class));
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.runs.cleanup-ms:3600000}")
+    public void cleanJobRuns() {
+        scheduledJobRunner.run(ScheduledJob.JOB_RUNS_CLEANUP, this::deleteOldJobRuns);
+    }
+
+    // Runs abandoned by a node that stopped are closed first, so they are purged like any other run.
+    public int deleteOldJobRuns() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ScheduledJob job : ScheduledJob.values()) {
+            long timeoutMinutes = scheduledJobRunner.getTimeoutMinutes(job);
+            int abandoned = jobRunRepository.failAbandoned(job.getJobName(), now.minusMinutes(timeoutMinutes), now,
+                    "Abandoned, still running " + timeoutMinutes + " minutes after it started");
+            if (abandoned > 0) {
+                logger.warn("Marked " + abandoned + " abandoned runs of job " + job.getJobName() + " as failed");
+            }
+        }
+        LocalDateTime threshold = now.minusDays(retentionDays);
+        LocalDateTime idleThreshold = now.minusHours(idleRetentionHours);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jobRunRepository.deleteFinishedBefore(threshold, idleThreshold, 1000);
+            total += deleted;
+        } while (deleted == 1000);
+        return total;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.AccountStatementFormat;
+import com.example.financetracker.ScheduledJob;
+import com.example.financetracker.ScheduledJobRunner;
+import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.entities.StatementDelivery;
+import com.example.financetracker.model.entities.StatementRun;
+import com.example.financetracker.model.entities.User;
+import com.example.financetracker.model.repositories.StatementDeliveryRepository;
+import com.example.financetracker.model.repositories.StatementRunRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class MonthlyStatementService extends AbstractService {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private StatementRunRepository statementRunRepository;
+
+    @Autowired
+    private StatementDeliveryRepository statementDeliveryRepository;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${exports.spool-dir:exports}")
+    private String spoolDir;
+
+    @Value("${statements.monthly.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${statements.monthly.parallelism:4}")
+    private int parallelism;
+
+    // renewed after every chunk, so it only runs out if the node sending the run stops
+    @Value("${statements.monthly.lease-minutes:30}")
+    private int leaseMinutes;
+
+    // a failed statement is retried once per check until it has been tried this many times
+    @Value("${statements.monthly.max-attempts:3}")
+    private int maxAttempts;
+
+    // identifies this instance in statement_runs.claimed_by, several instances may share a host
+    private final String claimId = UUID.randomUUID().toString();
+
+    private ExecutorService executor;
+    private Path spoolPath;
+
+    @PostConstruct
+    @SneakyThrows
+    public void init() {
+        spoolPath = Paths.get(spoolDir).toAbsolutePath();
+        Files.createDirectories(spoolPath);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "monthly-statement-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void subscribe(int userId, String format, int loggedUserId) {
+        checkUserAuthorization(userId, loggedUserId);
+        AccountStatementFormat statementFormat = AccountStatementFormat.fromString(format);
+        User user = getUserById(userId);
+        user.setMonthlyStatementFormat(statementFormat.name());
+        userRepository.save(user);
+        logger.info("User " + userId + " subscribed to monthly " + statementFormat + " statements");
+    }
+
+    public void unsubscribe(int userId, int loggedUserId) {
+        checkUserAuthorization(userId, loggedUserId);
+        User user = getUserById(userId);
+        user.setMonthlyStatementFormat(null);
+        userRepository.save(user);
+        logger.info("User " + userId + " unsubscribed from monthly statements");
+    }
+
+    // Checks hourly rather than once on the 1st, so a run interrupted by a restart resumes from its checkpoint.
+    @Scheduled(cron = "${statements.monthly.cron:0 0 * * * *}")
+    public void sendMonthlyStatements() {
+        scheduledJobRunner.run(ScheduledJob.MONTHLY_STATEMENTS, () -> sendMonthlyStatements(YearMonth.now().minusMonths(1)));
+    }
+
+    // Subscribed users are taken in id-ordered chunks, each chunk is sent in parallel and the
+    // checkpoint moves past it once all of its users have been handled. Every delivery is also recorded per user,
+    // so users of a chunk that were already emailed before a restart or a lost claim are skipped when it is resumed.
+    // Failed users are retried on later checks, the run completes once none of them has attempts left.
+    // The hourly check fires on every node, so the run is claimed first and only the node holding the claim sends.
+    // returns the number of statements sent by this call
+    @SneakyThrows
+    public int sendMonthlyStatements(YearMonth month) {
+        String period = month.toString();
+        LocalDateTime now = LocalDateTime.now();
+        statementRunRepository.insertIfAbsent(period, now);
+        if (statementRunRepository.claim(period, claimId, now, now.plusMinutes(leaseMinutes)) == 0) {
+            // already completed, or another node is sending it
+            return 0;
+        }
+        StatementRun run = statementRunRepository.findByPeriod(period)
+                .orElseThrow(() -> new IllegalStateException("Statement run " + period + " disappeared after it was claimed"));
+        int previouslySent = run.getSentCount();
+        LocalDateTime startDate = month.atDay(1).atStartOfDay();
+        LocalDateTime endDate = month.atEndOfMonth().atTime(LocalTime.MAX);
+
+        List<User> users;
+        while (!(users = userRepository.findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(
+                run.getLastUserId(), PageRequest.of(0, chunkSize))).isEmpty()) {
+            Set<Integer> alreadySent = new HashSet<>(statementDeliveryRepository.findSentUserIds(period,
+                    users.stream().map(User::getId).toList()));
+            List<User> pending = users.stream().filter(user -> !alreadySent.contains(user.getId())).toList();
+            int sent = deliver(pending, month, startDate, endDate);
+            run.setSentCount(run.getSentCount() + sent);
+            run.setFailedCount(run.getFailedCount() + pending.size() - sent);
+            run.setLastUserId(users.get(users.size() - 1).getId());
+            if (!saveProgress(run)) {
+                logger.warn("Lost the claim on monthly statements for " + month + " after user " + run.getLastUserId()
+                        + ", another node carries on from its checkpoint");
+                return run.getSentCount() - previouslySent;
+            }
+        }
+
+        // only failures from earlier checks are retried, the ones from this check wait for the next
+        List<StatementDelivery> failed = statementDeliveryRepository
+                .findAllByPeriodAndStatusAndAttemptsLessThanAndUpdatedAtBeforeOrderByUserIdAsc(period,
+                        StatementDelivery.Status.FAILED, maxAttempts, now);
+        if (!failed.isEmpty()) {
+            List<User> retries = new ArrayList<>();
+            for (StatementDelivery delivery : failed) {
+                Optional<User> user = userRepository.findById(delivery.getUserId());
+                if (user.isPresent() && user.get().getMonthlyStatementFormat() != null) {
+                    retries.add(user.get());
+                } else {
+                    // deleted or unsubscribed since, there is nothing left to retry
+                    statementDeliveryRepository.delete(delivery);
+                    run.setFailedCount(run.getFailedCount() - 1);
+                }
+            }
+            int sent = deliver(retries, month, startDate, endDate);
+            run.setSentCount(run.getSentCount() + sent);
+            run.setFailedCount(run.getFailedCount() - sent);
+            if (!saveProgress(run)) {
+                logger.warn("Lost the claim on monthly statements for " + month + " while retrying failed users");
+                return run.getSentCount() - previouslySent;
+            }
+        }
+        if (statementDeliveryRepository.countByPeriodAndStatusAndAttemptsLessThan(period,
+                StatementDelivery.Status.FAILED, maxAttempts) > 0) {
+            logger.info("Monthly statements for " + month + " have " + run.getFailedCount()
+                    + " failed users, they are retried on the next check");
+            return run.getSentCount() - previouslySent;
+        }
+        run.setCompletedAt(LocalDateTime.now());
+        saveProgress(run);
+        logger.info("Monthly statements for " + month + " sent: " + run.getSentCount() + ", failed: " + run.getFailedCount());
+        return run.getSentCount() - previouslySent;
+    }
+
+    // sends the users' statements in parallel and records each delivery as soon as it is done,
+    // returns how many were sent
+    private int deliver(List<User> users, YearMonth month, LocalDateTime startDate, LocalDateTime endDate)
+            throws InterruptedException {
+        String period = month.toString();
+        List<Future<?>> futures = new ArrayList<>();
+        for (User user : users) {
+            futures.add(executor.submit(() -> {
+                try {
+                    sendStatement(user, month, startDate, endDate);
+                } catch (Exception e) {
+                    statementDeliveryRepository.record(period, user.getId(), StatementDelivery.Status.FAILED.name(),
+                            LocalDateTime.now());
+                    throw e;
+                }
+                statementDeliveryRepository.record(period, user.getId(), StatementDelivery.Status.SENT.name(),
+                        LocalDateTime.now());
+            }));
+        }
+        int sent = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+                sent++;
+            } catch (ExecutionException e) {
+                logger.error("Monthly statement for user " + users.get(i).getId() + " failed: " + e.getCause().getMessage());
+            }
+        }
+        return sent;
+    }
+
+    private boolean saveProgress(StatementRun run) {
+        return statementRunRepository.updateProgress(run.getId(), claimId, run.getLastUserId(), run.getSentCount(),
+                run.getFailedCount(), LocalDateTime.now().plusMinutes(leaseMinutes), run.getCompletedAt()) > 0;
+    }
+
+    @SneakyThrows
+    private void sendStatement(User user, YearMonth month, LocalDateTime startDate, LocalDateTime endDate) {
+        List<Account> accounts = accountRepository.findAllByOwnerId(user.getId());
+        if (accounts.isEmpty()) {
+            return;
+        }
+        AccountStatementFormat format = AccountStatementFormat.valueOf(user.getMonthlyStatementFormat());
+        List<Path> files = new ArrayList<>();
+        try {
+            MimeMessage message = javaMailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            helper.setFrom("finance.tracker.app2023@gmail.com");
+            helper.setTo(user.getEmail());
+            helper.setSubject("Your Finance tracker statements for " + month);
+            helper.setText("""
+                    Hi,
+
+                    Your account statements for %s are attached.
+
+                    Best regards,
+                    The Finance tracker team""".formatted(month));
+            for (Account account : accounts) {
+                Path file = Files.createTempFile(spoolPath, "monthly-statement-", ".part");
+                files.add(file);
+                try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    accountService.writeAccountStatement(account.getId(), format, startDate, endDate, user.getId(), outputStream);
+                }
+                helper.addAttachment(account.getName() + "-" + month + "." + format.getExtension(), new FileSystemResource(file));
+            }
+            javaMailSender.send(message);
+        } finally {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Could not delete statement spool file " + file + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.ScheduledJob;
+import com.example.financetracker.ScheduledJobRunner;
+import com.example.financetracker.model.entities.OutboxNotification;
+import com.example.financetracker.model.repositories.OutboxNotificationRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class NotificationOutboxService extends AbstractService {
+
+    @Autowired
+    private OutboxNotificationRepository outboxNotificationRepository;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${notifications.outbox.lease-minutes:5}")
+    private int leaseMinutes;
+
+    @Value("${notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    @Value("${notifications.outbox.retention-days:7}")
+    private int retentionDays;
+
+    // Joins the caller's transaction, so the email only exists once the change it reports on is committed.
+    @Transactional
+    public void enqueueEmail(String recipient, String subject, String body) {
+        OutboxNotification notification = new OutboxNotification();
+        notification.setRecipient(recipient);
+        notification.setSubject(subject);
+        notification.setBody(body);
+        notification.setStatus(OutboxNotification.Status.PENDING);
+        notification.setCreatedAt(LocalDateTime.now());
+        notification.setNextAttemptAt(notification.getCreatedAt());
+        outboxNotificationRepository.save(notification);
+    }
+
+    // Same lease scheme as claiming planned payments: the claimed rows are pushed past a lease before the commit,
+    // so another node only picks them up again if this one dies before recording the outcome.
+    @Transactional
+    public List<OutboxNotification> claimPending(LocalDateTime now, int limit) {
+        List<Long> ids = outboxNotificationRepository.lockPendingIds(now, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        outboxNotificationRepository.updateNextAttemptAt(ids, now.plusMinutes(leaseMinutes));
+
+        return outboxNotificationRepository.findAllById(ids);
+    }
+
+    @Transactional
+    public void markSent(List<Long> ids, LocalDateTime now) {
+        if (!ids.isEmpty()) {
+            outboxNotificationRepository.updateSent(ids, OutboxNotification.Status.SENT, now);
+        }
+    }
+
+    // notification id -> error; each one is retried with a doubling delay until it runs out of attempts
+    @Transactional
+    public void markFailed(Map<Long, String> errors, LocalDateTime now) {
+        for (OutboxNotification notification : outboxNotificationRepository.findAllById(errors.keySet())) {
+            int attempts = notification.getAttempts() + 1;
+            String error = errors.get(notification.getId());
+            notification.setAttempts(attempts);
+            notification.setLastError(error != null && error.length() > 255 ? error.substring(0, 255) : error);
+            if (attempts >= maxAttempts) {
+                notification.setStatus(OutboxNotification.Status.FAILED);
+                logger.error("Giving up on notification " + notification.getId() + " after " + attempts + " attempts: " + error);
+            } else {
+                notification.setNextAttemptAt(now.plus(Duration.ofMillis(retryDelayMs << Math.min(attempts - 1, 20))));
+            }
+            outboxNotificationRepository.save(notification);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.cleanup-ms:3600000}")
+    public void cleanSentNotifications() {
+        scheduledJobRunner.run(ScheduledJob.OUTBOX_CLEANUP, this::deleteSentNotifications);
+    }
+
+    public int deleteSentNotifications() {
+        LocalDateTime threshold = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = outboxNotificationRepository.deleteSentBefore(threshold, 1000);
+            total += deleted;
+        } while (deleted == 1000);
+        return total;
+    }
+}
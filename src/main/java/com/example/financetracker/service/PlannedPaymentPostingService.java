@@ -0,0 +1,274 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.PlannedPaymentTimer;
+import com.example.financetracker.RecurrenceRule;
+import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.DuePlannedPaymentDTO;
+import com.example.financetracker.model.entities.*;
+import com.example.financetracker.model.entities.Currency;
+import com.example.financetracker.model.repositories.BudgetRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+@Service
+public class PlannedPaymentPostingService extends AbstractService {
+
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions " +
+            "(account_id, description, date, amount, currency_id, category_id, planned_payment_id) " +
+            "VALUES (:accountId, :description, :date, :amount, :currencyId, :categoryId, :plannedPaymentId)";
+    private static final String UPDATE_ACCOUNT =
+            "UPDATE accounts SET balance = balance + :delta, data_version = data_version + 1 WHERE id = :id";
+    private static final String UPDATE_BUDGET = "UPDATE budgets SET balance = balance - :amount WHERE id = :id";
+    private static final String LOCK_HELD_PLANNED_PAYMENTS =
+            "SELECT id FROM planned_payments WHERE id IN (:ids) AND next_run_at = :lease FOR UPDATE";
+    private static final String UPDATE_PLANNED_PAYMENT =
+            "UPDATE planned_payments SET date = :date, next_run_at = :nextRunAt, " +
+            "start_date = COALESCE(start_date, :startDate) WHERE id = :id";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private CurrencyExchangeService currencyExchangeService;
+
+    @Autowired
+    private PlannedPaymentTimer plannedPaymentTimer;
+
+    @Value("${planned-payments.lease-minutes:15}")
+    private int leaseMinutes;
+
+    // Locks a batch of due rows that no other node holds and pushes their next_run_at to the end of a lease
+    // before committing. Other nodes skip them until the lease runs out, which only happens if this node
+    // dies or fails to post them; the idempotency check in postDuePayments covers that retry.
+    @Transactional
+    public List<DuePlannedPaymentDTO> claimDuePayments(LocalDateTime now, int limit) {
+        List<Integer> ids = plannedPaymentRepository.lockDueIds(now, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        plannedPaymentRepository.updateNextRunAt(ids, getLease(now));
+
+        return plannedPaymentRepository.findDueByIds(ids);
+    }
+
+    // The exchange API is remote, so the rates the budgets of a batch need are fetched here, before postDuePayments
+    // takes its locks, instead of while the transaction holds them. Deliberately not transactional.
+    // returns the rates keyed by rateKey
+    public Map<String, BigDecimal> getExchangeRates(List<Integer> plannedPaymentIds) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        Map<Integer, List<Budget>> budgetsByOwner = new HashMap<>();
+        for (PlannedPayment plannedPayment : plannedPaymentRepository.findAllById(plannedPaymentIds)) {
+            if (plannedPayment.getCategory().getType() != Category.CategoryType.EXPENSE) {
+                continue;
+            }
+            Account account = plannedPayment.getAccount();
+            Currency from = account.getCurrency();
+            for (Budget budget : budgetsByOwner.computeIfAbsent(account.getOwner().getId(), budgetRepository::findAllByOwnerId)) {
+                Currency to = budget.getCurrency();
+                if (budget.getCategory().getId() == plannedPayment.getCategory().getId() && from.getId() != to.getId()) {
+                    rates.computeIfAbsent(rateKey(from, to), key -> currencyExchangeService
+                            .getExchangedCurrency(from.getKind(), to.getKind(), BigDecimal.ONE).getResult());
+                }
+            }
+        }
+        return rates;
+    }
+
+    // Posts every occurrence that fell due up to now, so payments missed while the app was down are caught up.
+    // An occurrence that already has its transaction is only advanced past, never charged twice.
+    // Balances and budgets are worked out in memory and written as one delta per account and per budget,
+    // the transactions themselves go in as a single JDBC batch.
+    // Only payments whose lease this node still holds are posted. Their rows stay locked until the commit, so a node
+    // that re-claims them once the lease has run out skips them, and by then next_run_at has moved on anyway.
+    // The unique key on transactions (planned_payment_id, date) rolls back any duplicate that still slips through.
+    // Budgets in another currency are converted with the rates from getExchangeRates.
+    @Transactional
+    public int postDuePayments(List<Integer> plannedPaymentIds, LocalDateTime now, Map<String, BigDecimal> exchangeRates) {
+        List<Integer> heldIds = jdbcTemplate.queryForList(LOCK_HELD_PLANNED_PAYMENTS,
+                new MapSqlParameterSource("ids", plannedPaymentIds).addValue("lease", getLease(now)), Integer.class);
+        if (heldIds.size() < plannedPaymentIds.size()) {
+            logger.warn("Skipped " + (plannedPaymentIds.size() - heldIds.size())
+                    + " planned payments whose lease ran out before they were posted");
+        }
+        if (heldIds.isEmpty()) {
+            return 0;
+        }
+        List<PlannedPayment> plannedPayments = new ArrayList<>(plannedPaymentRepository.findAllById(heldIds));
+        if (plannedPayments.isEmpty()) {
+            return 0;
+        }
+        plannedPayments.sort(Comparator.comparingInt(PlannedPayment::getId));
+        Set<String> postedOccurrences = findPostedOccurrences(plannedPayments);
+
+        Map<Integer, BigDecimal> balances = new HashMap<>();
+        Map<Integer, BigDecimal> accountDeltas = new LinkedHashMap<>();
+        Map<Integer, List<Budget>> budgetsByOwner = new HashMap<>();
+        // budget -> currency of the posted amounts -> amount spent
+        Map<Budget, Map<Currency, BigDecimal>> budgetDeltas = new LinkedHashMap<>();
+        List<SqlParameterSource> transactionRows = new ArrayList<>();
+        List<SqlParameterSource> plannedPaymentRows = new ArrayList<>();
+        // the entities are left untouched, so the session has nothing to flush on top of the batches
+        Map<Integer, LocalDateTime> nextRuns = new LinkedHashMap<>();
+
+        for (PlannedPayment plannedPayment : plannedPayments) {
+            Account account = plannedPayment.getAccount();
+            BigDecimal amount = plannedPayment.getAmount();
+            boolean expense = plannedPayment.getCategory().getType() == Category.CategoryType.EXPENSE;
+            BigDecimal balance = balances.getOrDefault(account.getId(), account.getBalance());
+            RecurrenceRule rule = getRecurrenceRule(plannedPayment);
+            LocalDateTime start = getRecurrenceStart(plannedPayment);
+            LocalDateTime date = plannedPayment.getDate();
+            LocalDateTime lastDate = date;
+            boolean blocked = false;
+            while (date != null && !date.isAfter(now)) {
+                if (!postedOccurrences.contains(occurrenceKey(plannedPayment.getId(), date))) {
+                    // as for any transaction (see checkSufficientFunds), the account has to cover the amount
+                    if (balance.compareTo(amount) < 0) {
+                        blocked = true;
+                        break;
+                    }
+                    balance = expense ? balance.subtract(amount) : balance.add(amount);
+                    accountDeltas.merge(account.getId(), expense ? amount.negate() : amount, BigDecimal::add);
+                    if (expense) {
+                        addToBudgets(plannedPayment, date, budgetsByOwner, budgetDeltas);
+                    }
+                    transactionRows.add(new MapSqlParameterSource()
+                            .addValue("accountId", account.getId())
+                            .addValue("description", plannedPayment.getDescription())
+                            .addValue("date", date)
+                            .addValue("amount", amount)
+                            .addValue("currencyId", account.getCurrency().getId())
+                            .addValue("categoryId", plannedPayment.getCategory().getId())
+                            .addValue("plannedPaymentId", plannedPayment.getId()));
+                }
+                lastDate = date;
+                date = rule.next(start, date);
+            }
+            balances.put(account.getId(), balance);
+            // a blocked payment stays on the occurrence it could not post and is retried later;
+            // a finished series keeps its last date and no next_run_at
+            LocalDateTime nextRunAt = date;
+            if (blocked) {
+                nextRunAt = getBlockedRetry(rule, start, date, now);
+                logger.warn("Planned payment " + plannedPayment.getId() + " due " + date
+                        + " not posted: insufficient funds in account " + account.getId() + ", retrying at " + nextRunAt);
+            }
+            plannedPaymentRows.add(new MapSqlParameterSource()
+                    .addValue("id", plannedPayment.getId())
+                    .addValue("date", date != null ? date : lastDate)
+                    .addValue("nextRunAt", nextRunAt)
+                    .addValue("startDate", start));
+            nextRuns.put(plannedPayment.getId(), nextRunAt);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactionRows.toArray(new SqlParameterSource[0]));
+        jdbcTemplate.batchUpdate(UPDATE_ACCOUNT, accountDeltas.entrySet().stream()
+                .map(e -> new MapSqlParameterSource("id", e.getKey()).addValue("delta", e.getValue()))
+                .toArray(SqlParameterSource[]::new));
+        List<SqlParameterSource> budgetRows = new ArrayList<>();
+        for (Map.Entry<Budget, Map<Currency, BigDecimal>> entry : budgetDeltas.entrySet()) {
+            Budget budget = entry.getKey();
+            BigDecimal spent = BigDecimal.ZERO;
+            for (Map.Entry<Currency, BigDecimal> byCurrency : entry.getValue().entrySet()) {
+                spent = spent.add(convertIfDifferentCurrency(byCurrency.getKey(), budget.getCurrency(), byCurrency.getValue(),
+                        exchangeRates));
+            }
+            budgetRows.add(new MapSqlParameterSource("id", budget.getId()).addValue("amount", spent));
+        }
+        jdbcTemplate.batchUpdate(UPDATE_BUDGET, budgetRows.toArray(new SqlParameterSource[0]));
+        jdbcTemplate.batchUpdate(UPDATE_PLANNED_PAYMENT, plannedPaymentRows.toArray(new SqlParameterSource[0]));
+
+        nextRuns.forEach(plannedPaymentTimer::schedule);
+        logger.info("Posted " + transactionRows.size() + " planned payment transactions for "
+                + accountDeltas.size() + " accounts");
+
+        return transactionRows.size();
+    }
+
+    // DATETIME columns keep whole seconds, so the lease is truncated to compare equal to what was stored
+    private LocalDateTime getLease(LocalDateTime claimedAt) {
+        return claimedAt.truncatedTo(ChronoUnit.SECONDS).plusMinutes(leaseMinutes);
+    }
+
+    // The wait doubles with every failed attempt, as it is as long as the occurrence has been overdue (at least
+    // one lease), but it never goes past the next occurrence, when the account is likely to be topped up again.
+    private LocalDateTime getBlockedRetry(RecurrenceRule rule, LocalDateTime start, LocalDateTime dueDate,
+                                          LocalDateTime now) {
+        LocalDateTime attemptedAt = now.truncatedTo(ChronoUnit.SECONDS);
+        Duration overdue = Duration.between(dueDate, attemptedAt);
+        Duration lease = Duration.ofMinutes(leaseMinutes);
+        LocalDateTime retryAt = attemptedAt.plus(overdue.compareTo(lease) > 0 ? overdue : lease);
+        LocalDateTime nextOccurrence = rule.next(start, now);
+        if (nextOccurrence != null && nextOccurrence.isBefore(retryAt)) {
+            return nextOccurrence;
+        }
+        return retryAt;
+    }
+
+    private Set<String> findPostedOccurrences(List<PlannedPayment> plannedPayments) {
+        List<Integer> ids = new ArrayList<>();
+        LocalDateTime from = null;
+        for (PlannedPayment plannedPayment : plannedPayments) {
+            ids.add(plannedPayment.getId());
+            if (from == null || plannedPayment.getDate().isBefore(from)) {
+                from = plannedPayment.getDate();
+            }
+        }
+        Set<String> posted = new HashSet<>();
+        jdbcTemplate.query("SELECT planned_payment_id, date FROM transactions WHERE planned_payment_id IN (:ids) AND date >= :from",
+                new MapSqlParameterSource("ids", ids).addValue("from", from),
+                (RowCallbackHandler) rs -> posted.add(occurrenceKey(rs.getInt(1), rs.getObject(2, LocalDateTime.class))));
+
+        return posted;
+    }
+
+    private void addToBudgets(PlannedPayment plannedPayment, LocalDateTime date, Map<Integer, List<Budget>> budgetsByOwner,
+                              Map<Budget, Map<Currency, BigDecimal>> budgetDeltas) {
+        Account account = plannedPayment.getAccount();
+        List<Budget> budgets = budgetsByOwner.computeIfAbsent(account.getOwner().getId(), budgetRepository::findAllByOwnerId);
+        for (Budget budget : budgets) {
+            if (budget.getCategory().getId() == plannedPayment.getCategory().getId()
+                    && budget.getStartDate().isBefore(date) && budget.getEndDate().isAfter(date)) {
+                budgetDeltas.computeIfAbsent(budget, b -> new HashMap<>())
+                        .merge(account.getCurrency(), plannedPayment.getAmount(), BigDecimal::add);
+            }
+        }
+    }
+
+    // A missing rate means a budget appeared after the rates were fetched. Failing rolls the batch back, and the
+    // payments are posted with fresh rates once their lease runs out.
+    private BigDecimal convertIfDifferentCurrency(Currency from, Currency to, BigDecimal amount,
+                                                  Map<String, BigDecimal> exchangeRates) {
+        if (from.getId() == to.getId()) {
+            return amount;
+        }
+        BigDecimal rate = exchangeRates.get(rateKey(from, to));
+        if (rate == null) {
+            throw new IllegalStateException("No exchange rate from " + from.getKind() + " to " + to.getKind()
+                    + " was fetched before posting");
+        }
+        return amount.multiply(rate);
+    }
+
+    private String rateKey(Currency from, Currency to) {
+        return from.getId() + ">" + to.getId();
+    }
+
+    private String occurrenceKey(int plannedPaymentId, LocalDateTime date) {
+        return plannedPaymentId + "|" + date;
+    }
+}
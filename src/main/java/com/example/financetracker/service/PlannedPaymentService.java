@@ -1,35 +1,81 @@
 package com.example.financetracker.service;
 
+import com.example.financetracker.PlannedPaymentTimer;
+import com.example.financetracker.RecurrenceRule;
+import com.example.financetracker.ScheduledJob;
+import com.example.financetracker.ScheduledJobRunner;
+import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.DuePlannedPaymentDTO;
 import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.PlannedPaymentDTO;
 import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.PlannedPaymentRequestDTO;
 import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionDTOWithoutPlannedPayments;
-import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionRequestDTO;
 import com.example.financetracker.model.entities.*;
 import com.example.financetracker.model.exceptions.BadRequestException;
 import com.example.financetracker.model.exceptions.NotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
+import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @EnableScheduling
 @Service
 public class PlannedPaymentService extends AbstractService {
 
     @Autowired
-    private TransactionService transactionService;
+    private PlannedPaymentPostingService plannedPaymentPostingService;
+
+    @Autowired
+    private PlannedPaymentTimer plannedPaymentTimer;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${planned-payments.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${planned-payments.parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "planned-payments-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        plannedPaymentTimer.start(this::postDuePlannedPayments);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
 
     public PlannedPaymentDTO createPlannedPayment(PlannedPaymentRequestDTO plannedPaymentRequestDTO, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         Account account = getAccountById(plannedPaymentRequestDTO.getAccountId());
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
+        checkUserAuthorization(account.getOwner().getId(), loggedUserId);
         Category category = getCategoryById(plannedPaymentRequestDTO.getCategoryId());
         checkSufficientFunds(account.getBalance(), plannedPaymentRequestDTO.getAmount());
         PlannedPayment plannedPayment = new PlannedPayment();
@@ -37,9 +83,14 @@ public class PlannedPaymentService extends AbstractService {
         plannedPayment.setCategory(category);
         plannedPayment.setDescription(plannedPaymentRequestDTO.getDescription());
         plannedPayment.setAmount(plannedPaymentRequestDTO.getAmount());
-        plannedPayment.setDate(plannedPaymentRequestDTO.getDate());
         plannedPayment.setFrequency(getFrequencyById(plannedPaymentRequestDTO.getFrequencyId()));
+        plannedPayment.setRecurrenceRule(validateRecurrenceRule(plannedPaymentRequestDTO.getRecurrenceRule()));
+        plannedPayment.setStartDate(plannedPaymentRequestDTO.getDate());
+        LocalDateTime firstDate = getFirstOccurrence(plannedPayment);
+        plannedPayment.setDate(firstDate);
+        plannedPayment.setNextRunAt(firstDate);
         plannedPaymentRepository.save(plannedPayment);
+        plannedPaymentTimer.schedule(plannedPayment.getId(), plannedPayment.getNextRunAt());
         logger.info("Created planned payment: "+plannedPayment.getId()+"\n"+plannedPayment.toString());
 
         return mapper.map(plannedPayment, PlannedPaymentDTO.class);
@@ -47,9 +98,9 @@ public class PlannedPaymentService extends AbstractService {
 
     @Transactional
     public PlannedPaymentDTO editPlannedPaymentById(int id, PlannedPaymentRequestDTO plannedPaymentRequestDTO, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         PlannedPayment plannedPayment = getPlannedPaymentById(id);
-        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), loggedUserId);
+        checkAccountOwnership(plannedPaymentRequestDTO.getAccountId(), loggedUserId);
         Category category = getCategoryById(plannedPaymentRequestDTO.getCategoryId());
         checkSufficientFunds(plannedPayment.getAccount().getBalance(), plannedPaymentRequestDTO.getAmount());
         Account account = getAccountById(plannedPaymentRequestDTO.getAccountId());
@@ -57,93 +108,127 @@ public class PlannedPaymentService extends AbstractService {
         plannedPayment.setCategory(category);
         plannedPayment.setDescription(plannedPaymentRequestDTO.getDescription());
         plannedPayment.setAmount(plannedPaymentRequestDTO.getAmount());
-        plannedPayment.setDate(plannedPaymentRequestDTO.getDate());
         plannedPayment.setFrequency(getFrequencyById(plannedPaymentRequestDTO.getFrequencyId()));
+        plannedPayment.setRecurrenceRule(validateRecurrenceRule(plannedPaymentRequestDTO.getRecurrenceRule()));
+        plannedPayment.setStartDate(plannedPaymentRequestDTO.getDate());
+        LocalDateTime firstDate = getFirstOccurrence(plannedPayment);
+        plannedPayment.setDate(firstDate);
+        plannedPayment.setNextRunAt(firstDate);
         plannedPaymentRepository.save(plannedPayment);
+        plannedPaymentTimer.schedule(plannedPayment.getId(), plannedPayment.getNextRunAt());
         logger.info("Updated planned payment: "+plannedPayment.getId()+"\n"+plannedPayment.toString());
 
         return mapper.map(plannedPayment, PlannedPaymentDTO.class);
     }
 
     public PlannedPaymentDTO deletePlannedPaymentById(int id, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         PlannedPayment plannedPayment = getPlannedPaymentById(id);
-        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), loggedUserId);
         List<Transaction> transactions = transactionRepository.findAllByPlannedPayment(plannedPayment);
         if (!transactions.isEmpty()) {
             throw new BadRequestException("Cannot delete planned payment that has related transactions.");
         }
         plannedPaymentRepository.delete(plannedPayment);
+        plannedPaymentTimer.cancel(plannedPayment.getId());
         logger.info("Deleted planned payment: "+plannedPayment.getId()+"\n"+plannedPayment.toString());
 
         return mapper.map(plannedPayment, PlannedPaymentDTO.class);
     }
 
     public PlannedPaymentDTO getPlannedPaymentById(int id, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         PlannedPayment plannedPayment = getPlannedPaymentById(id);
-        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), loggedUserId);
 
         return mapper.map(plannedPayment, PlannedPaymentDTO.class);
     }
 
     public Page<PlannedPaymentDTO> getAllPlannedPaymentsForAccount(int accountId, int loggedUserId, Pageable pageable) {
-        User user = getUserById(loggedUserId);
-        Account account = getAccountById(accountId);
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
-        Page<PlannedPayment> plannedPayments = plannedPaymentRepository.findAllByAccount(account, pageable);
+        checkAccountOwnership(accountId, loggedUserId);
+        Page<PlannedPayment> plannedPayments = plannedPaymentRepository.findAllByAccount_Id(accountId, pageable);
         checkIfPlannedPaymentsExist(plannedPayments);
 
         return plannedPayments.map(plannedPayment -> mapper.map(plannedPayment, PlannedPaymentDTO.class));
     }
 
     public Page<TransactionDTOWithoutPlannedPayments> getAllTransactionsForPlannedPayment(int plannedPaymentId, int loggedUserId, Pageable pageable) {
-        User user = getUserById(loggedUserId);
         PlannedPayment plannedPayment = getPlannedPaymentById(plannedPaymentId);
-        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(plannedPayment.getAccount().getOwner().getId(), loggedUserId);
         Page<Transaction> transactions = transactionRepository.findAllByPlannedPayment(plannedPayment, pageable);
         checkIfTransactionsExist(transactions);
 
         return transactions.map(transaction -> mapper.map(transaction, TransactionDTOWithoutPlannedPayments.class));
     }
 
-    @Transactional
-    //@Scheduled(fixedDelay = 1000) // test - every 2 seconds
-    @Scheduled(fixedDelay = 24 * 60 * 60 * 1000) // every 24 hours
+    // Every node runs this. Each one claims disjoint batches of due payments (see claimDuePayments) and splits
+    // a batch into one partition per owner, so an account's payments (and the owner's budgets) are still
+    // written one after another while partitions run in parallel. The timer runs it as payments come due,
+    // the fixed delay is the safety net for anything it missed.
+    @Scheduled(fixedDelayString = "${planned-payments.process-delay-ms:3600000}")
     public void processPlannedPayments() {
-        List<PlannedPayment> plannedPayments = plannedPaymentRepository.findAllByDate(LocalDateTime.now().truncatedTo(ChronoUnit.DAYS));
-        for (PlannedPayment plannedPayment : plannedPayments) {
-            TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO();
-            transactionRequestDTO.setAmount(plannedPayment.getAmount());
-            transactionRequestDTO.setDate(plannedPayment.getDate());
-            transactionRequestDTO.setAccountId(plannedPayment.getAccount().getId());
-            transactionRequestDTO.setDescription(plannedPayment.getDescription());
-            transactionRequestDTO.setCategoryId(plannedPayment.getCategory().getId());
-            transactionRequestDTO.setPlannedPaymentId(plannedPayment.getId());
-            transactionRequestDTO.setCurrencyId(plannedPayment.getAccount().getCurrency().getId());
-            transactionService.createTransaction(transactionRequestDTO, plannedPayment.getAccount().getOwner().getId());
-
-            Frequency frequency = plannedPayment.getFrequency();
-            LocalDateTime nextPaymentDate = plannedPayment.getDate().plusDays(1);
-            switch (frequency.getFrequencyType()) {
-                case DAILY:
-                    nextPaymentDate = plannedPayment.getDate().plusDays(1);
-                    break;
-                case WEEKLY:
-                    nextPaymentDate = plannedPayment.getDate().plusWeeks(1);
-                    break;
-                case MONTHLY:
-                    nextPaymentDate = plannedPayment.getDate().plusMonths(1);
-                    break;
-                case YEARLY:
-                    nextPaymentDate = plannedPayment.getDate().plusYears(1);
-                    break;
+        scheduledJobRunner.run(ScheduledJob.PLANNED_PAYMENTS, this::postDuePlannedPayments);
+    }
+
+    @SneakyThrows
+    public int postDuePlannedPayments() {
+        LocalDateTime now = LocalDateTime.now();
+        AtomicInteger posted = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<DuePlannedPaymentDTO> due;
+        while (!(due = plannedPaymentPostingService.claimDuePayments(now, chunkSize)).isEmpty()) {
+            Map<Integer, List<Integer>> partitions = due.stream().collect(Collectors.groupingBy(
+                    DuePlannedPaymentDTO::getOwnerId, LinkedHashMap::new,
+                    Collectors.mapping(DuePlannedPaymentDTO::getId, Collectors.toList())));
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Integer> ids : partitions.values()) {
+                futures.add(executor.submit(() -> postPartition(ids, now, posted, failed)));
+            }
+            // the next batch may hold more payments of the same accounts, so it waits for this one
+            for (Future<?> future : futures) {
+                future.get();
             }
-            plannedPayment.setDate(nextPaymentDate);
         }
+        logger.info("Processed planned payments, posted transactions: " + posted + ", failed payments: " + failed);
+        return posted.get();
+    }
 
-        plannedPaymentRepository.saveAll(plannedPayments);
+    // One transaction per partition, its exchange rates fetched before the transaction starts. A partition that
+    // fails is retried one payment at a time, so a single bad payment is left to its lease running out instead of
+    // blocking the rest.
+    private void postPartition(List<Integer> ids, LocalDateTime now, AtomicInteger posted, AtomicInteger failed) {
+        try {
+            Map<String, BigDecimal> exchangeRates = plannedPaymentPostingService.getExchangeRates(ids);
+            posted.addAndGet(plannedPaymentPostingService.postDuePayments(ids, now, exchangeRates));
+        } catch (RuntimeException e) {
+            for (Integer id : ids) {
+                try {
+                    Map<String, BigDecimal> exchangeRates = plannedPaymentPostingService.getExchangeRates(List.of(id));
+                    posted.addAndGet(plannedPaymentPostingService.postDuePayments(List.of(id), now, exchangeRates));
+                } catch (DuplicateKeyException ex) {
+                    logger.warn("Planned payment " + id + " was already posted by another node, rolled back");
+                } catch (RuntimeException ex) {
+                    failed.incrementAndGet();
+                    logger.error("Planned payment " + id + " could not be processed: " + ex.getMessage());
+                }
+            }
+        }
+    }
 
+    private String validateRecurrenceRule(String recurrenceRule) {
+        if (recurrenceRule == null || recurrenceRule.isBlank()) {
+            return null;
+        }
+        RecurrenceRule.parse(recurrenceRule);
+        return recurrenceRule.trim();
+    }
+
+    // the start date itself is not an occurrence when the rule's BY* parts exclude it
+    private LocalDateTime getFirstOccurrence(PlannedPayment plannedPayment) {
+        LocalDateTime start = plannedPayment.getStartDate();
+        LocalDateTime firstDate = getRecurrenceRule(plannedPayment).next(start, start.minusNanos(1));
+        if (firstDate == null) {
+            throw new BadRequestException("The recurrence rule has no occurrences.");
+        }
+        return firstDate;
     }
 
     private void checkIfPlannedPaymentsExist(Page<PlannedPayment> plannedPayments){
@@ -0,0 +1,92 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.Totp;
+import com.example.financetracker.model.DTOs.UserDTOs.TotpEnrolmentDTO;
+import com.example.financetracker.model.entities.User;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import com.example.financetracker.model.exceptions.UnauthorizedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class TotpService extends AbstractService {
+
+    private static final String ISSUER = "Finance tracker";
+
+    // steps accepted on either side of the current one, to allow for clock drift on the phone
+    @Value("${totp.drift-steps:1}")
+    private int driftSteps;
+
+    // user id -> last step a code was accepted for, so a code cannot be replayed within its window
+    private final Map<Integer, Long> lastUsedSteps = new ConcurrentHashMap<>();
+
+    public TotpEnrolmentDTO enrol(int userId, int loggedUserId) {
+        checkUserAuthorization(userId, loggedUserId);
+        User user = getUserById(userId);
+        if (user.isTotpEnabled()) {
+            throw new BadRequestException("An authenticator app is already enabled. Disable it first.");
+        }
+        String secret = Totp.generateSecret();
+        user.setTotpSecret(secret);
+        userRepository.save(user);
+        logger.info("Started authenticator app enrolment for user " + userId);
+
+        return new TotpEnrolmentDTO(secret, Totp.getUri(ISSUER, user.getEmail(), secret));
+    }
+
+    // the first valid code proves the app holds the secret, only then is it used for logins
+    public void confirmEnrolment(int userId, String code, int loggedUserId) {
+        checkUserAuthorization(userId, loggedUserId);
+        User user = getUserById(userId);
+        if (user.getTotpSecret() == null) {
+            throw new BadRequestException("There is no pending authenticator app enrolment.");
+        }
+        verifyCode(user, code);
+        user.setTotpEnabled(true);
+        userRepository.save(user);
+        logger.info("Enabled authenticator app for user " + userId);
+    }
+
+    public void disable(int userId, String code, int loggedUserId) {
+        checkUserAuthorization(userId, loggedUserId);
+        User user = getUserById(userId);
+        if (!user.isTotpEnabled()) {
+            throw new BadRequestException("No authenticator app is enabled.");
+        }
+        verifyCode(user, code);
+        user.setTotpEnabled(false);
+        user.setTotpSecret(null);
+        userRepository.save(user);
+        lastUsedSteps.remove(userId);
+        logger.info("Disabled authenticator app for user " + userId);
+    }
+
+    public void verifyCode(User user, String code) {
+        if (!matches(user, code)) {
+            throw new UnauthorizedException("Confirmation code is invalid.");
+        }
+    }
+
+    // Pure CPU work against the secret already loaded with the user: no external call and no write.
+    // A code that was already accepted, or an older one, does not match again.
+    public boolean matches(User user, String code) {
+        long step = Totp.verify(user.getTotpSecret(), code, Instant.now().getEpochSecond(), driftSteps);
+        if (step < 0) {
+            return false;
+        }
+        AtomicBoolean accepted = new AtomicBoolean();
+        lastUsedSteps.compute(user.getId(), (id, lastUsed) -> {
+            if (lastUsed != null && lastUsed >= step) {
+                return lastUsed;
+            }
+            accepted.set(true);
+            return step;
+        });
+        return accepted.get();
+    }
+}
@@ -7,6 +7,7 @@ import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionEditRequ
 import com.example.financetracker.model.DTOs.TransactionDTOs.TransactionRequestDTO;
 import com.example.financetracker.model.entities.*;
 import com.example.financetracker.model.exceptions.BadRequestException;
+import com.example.financetracker.model.exceptions.NotFoundException;
 import com.example.financetracker.model.repositories.BudgetRepository;
 import com.example.financetracker.model.repositories.TransactionRepository;
 import jakarta.transaction.Transactional;
@@ -33,9 +34,8 @@ public class TransactionService extends AbstractService {
 
     @Transactional
     public TransactionDTO createTransaction(TransactionRequestDTO transactionRequestDTO, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         Account account = getAccountById(transactionRequestDTO.getAccountId());
-        authenticateUser(account.getOwner(), user);
+        checkUserAuthorization(account.getOwner().getId(), loggedUserId);
         Category category = getCategoryById(transactionRequestDTO.getCategoryId());
         checkSufficientFunds(account.getBalance(), transactionRequestDTO.getAmount());
         Currency currency = getCurrencyById(transactionRequestDTO.getCurrencyId());
@@ -55,6 +55,7 @@ public class TransactionService extends AbstractService {
             transaction.setPlannedPayment(plannedPayment);
         }
         account = adjustAccountBalanceOnCreate(account, transaction, amount);
+        account.setDataVersion(account.getDataVersion() + 1);
         accountRepository.save(account);
         if (transaction.getCategory().getType() == Category.CategoryType.EXPENSE) {
             subtractAmountFromBudgets(loggedUserId, category, transaction);
@@ -67,9 +68,8 @@ public class TransactionService extends AbstractService {
 
     @Transactional
     public TransactionDTO editTransactionById(int transactionId, TransactionEditRequestDTO transactionEditRequestDTO, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         Transaction transaction = getTransactionById(transactionId);
-        checkUserAuthorization(transaction.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(transaction.getAccount().getOwner().getId(), loggedUserId);
         Account account = transaction.getAccount();
         Category category = getCategoryById(transactionEditRequestDTO.getCategoryId());
         Currency currency = getCurrencyById(transactionEditRequestDTO.getCurrencyId());
@@ -77,6 +77,7 @@ public class TransactionService extends AbstractService {
         BigDecimal convertedAmount = originalAmount;
         convertedAmount = convertIfDifferentCurrency(transaction.getCurrency().getId(), account.getCurrency().getId(), convertedAmount);
         account = adjustAccountBalanceOnDelete(account, transaction, convertedAmount);
+        account.setDataVersion(account.getDataVersion() + 1);
         accountRepository.save(account);
         additionAmountToBudget(loggedUserId, transaction);
         transaction.setDate(transactionEditRequestDTO.getDate());
@@ -103,14 +104,14 @@ public class TransactionService extends AbstractService {
 
     @Transactional
     public TransactionDTO deleteTransactionById(int transactionId, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         Transaction transaction = getTransactionById(transactionId);
-        checkUserAuthorization(transaction.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(transaction.getAccount().getOwner().getId(), loggedUserId);
         Account account = transaction.getAccount();
         BigDecimal originalAmount = transaction.getAmount();
         BigDecimal convertedAmount = originalAmount;
         convertedAmount = convertIfDifferentCurrency(transaction.getCurrency().getId(), account.getCurrency().getId(), originalAmount);
         account.setBalance(account.getBalance().add(convertedAmount));
+        account.setDataVersion(account.getDataVersion() + 1);
         accountRepository.save(account);
         additionAmountToBudget(loggedUserId, transaction);
         transactionRepository.delete(transaction);
@@ -120,27 +121,23 @@ public class TransactionService extends AbstractService {
     }
 
     public TransactionDTO findTransactionById(int transactionId, int loggedUserId) {
-        User user = getUserById(loggedUserId);
         Transaction transaction = getTransactionById(transactionId);
-        checkUserAuthorization(transaction.getAccount().getOwner().getId(), user.getId());
+        checkUserAuthorization(transaction.getAccount().getOwner().getId(), loggedUserId);
         return createTransactionDTO(transaction.getCurrency(), transaction);
     }
 
     @Transactional
     public Page<TransactionDTO> getAllTransactionsForUser(int userId, int loggedUserId, Pageable pageable) {
         checkUserAuthorization(userId, loggedUserId);
-        User user = getUserById(userId);
-        Page<Transaction> transactions = transactionRepository.findAllByAccount_Owner(user, pageable);
+        Page<Transaction> transactions = transactionRepository.findAllByAccount_OwnerId(userId, pageable);
         checkIfTransactionsExist(transactions);
 
         return transactions.map(transaction -> createTransactionDTO(transaction.getCurrency(), transaction));
     }
 
     public Page<TransactionDTO> getAllTransactionsForAccount(int accountId, int loggedUserId, Pageable pageable) {
-        User user = getUserById(loggedUserId);
-        Account account = getAccountById(accountId);
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
-        Page<Transaction> transactions = transactionRepository.findAllByAccount(account, pageable);
+        checkAccountOwnership(accountId, loggedUserId);
+        Page<Transaction> transactions = transactionRepository.findAllByAccount_Id(accountId, pageable);
         checkIfTransactionsExist(transactions);
 
         return transactions.map(transaction -> createTransactionDTO(transaction.getCurrency(), transaction));
@@ -149,12 +146,10 @@ public class TransactionService extends AbstractService {
     public Page<TransactionDTO> getFilteredTransactions(LocalDateTime startDate, LocalDateTime endDate,
                                                         Integer categoryId, Integer accountId,
                                                         int loggedUserId, Pageable pageable) {
-        User user = getUserById(loggedUserId);
-        Account account = getAccountById(accountId);
-        checkUserAuthorization(account.getOwner().getId(), user.getId());
+        checkAccountOwnership(accountId, loggedUserId);
         Category category = categoryId != null ? getCategoryById(categoryId) : null;
         dateValidation(startDate, endDate);
-        Page<Transaction> transactions = transactionRepository.findByDateBetweenAndCategoryAndAccount(startDate, endDate, category, account, pageable);
+        Page<Transaction> transactions = transactionRepository.findByDateBetweenAndCategoryAndAccount_Id(startDate, endDate, category, accountId, pageable);
         checkIfTransactionsExist(transactions);
 
         return transactions.map(transaction -> createTransactionDTO(transaction.getCurrency(), transaction));
@@ -170,12 +165,11 @@ public class TransactionService extends AbstractService {
         }
     }
 
-    public List<Transaction> getTransactionsByAccountAndDateRange(Account account, LocalDateTime startDate, LocalDateTime endDate) {
+    public void validateStatementPeriod(int accountId, LocalDateTime startDate, LocalDateTime endDate) {
         dateValidation(startDate, endDate);
-        List<Transaction> transactions = transactionRepository.findByAccountAndDateBetween(account, startDate, endDate);
-        checkIfTransactionsExist(transactions);
-
-        return transactions;
+        if (!transactionRepository.existsByAccount_IdAndDateBetween(accountId, startDate, endDate)) {
+            throw new NotFoundException("Transactions not found");
+        }
     }
 
     private Budget adjustBudgetBalanceOnCreate(Budget budget, BigDecimal amount) {
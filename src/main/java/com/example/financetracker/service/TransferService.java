@@ -30,10 +30,7 @@ public class TransferService extends AbstractService {
 
     @Transactional
     public TransferDTO createTransfer(int loggedUserId, TransferRequestDTO transferRequestDTO) {
-        User user = userRepository.findUserByIdAndAccountId(loggedUserId, transferRequestDTO.getAccountSenderId());
-        if (user == null) {
-            throw new UnauthorizedException("Permission denied. You do not have authorization to make this transfer.");
-        }
+        checkAccountOwnership(transferRequestDTO.getAccountSenderId(), loggedUserId);
         Account accountSender = getAccountById(transferRequestDTO.getAccountSenderId());
         Account accountReceiver = getAccountById(transferRequestDTO.getAccountReceiverId());
         checkTransferAuthorizationByAccountOwners(accountReceiver.getOwner(), accountSender.getOwner());
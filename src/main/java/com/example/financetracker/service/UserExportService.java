@@ -0,0 +1,187 @@
+package com.example.financetracker.service;
+
+import com.example.financetracker.AccountStatementFormat;
+import com.example.financetracker.model.DTOs.PlannedPaymentDTOs.PlannedPaymentDTO;
+import com.example.financetracker.model.DTOs.TransferDTOs.TransferDTO;
+import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import com.example.financetracker.model.repositories.TransferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class UserExportService extends AbstractService {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${exports.spool-dir:exports}")
+    private String spoolDir;
+
+    @Value("${exports.zip.parallelism:3}")
+    private int parallelism;
+
+    private ExecutorService executor;
+    private Path spoolPath;
+
+    @PostConstruct
+    @SneakyThrows
+    public void init() {
+        spoolPath = Paths.get(spoolDir).toAbsolutePath();
+        Files.createDirectories(spoolPath);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "user-export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void validateUserExport(int userId, int loggedUserId, int compressionLevel) {
+        checkUserAuthorization(userId, loggedUserId);
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new BadRequestException("Compression level must be between 0 and 9.");
+        }
+    }
+
+    // Entries are generated into spool files by a bounded pool and copied into the zip
+    // in a fixed order as soon as each one is ready.
+    @SneakyThrows
+    public void writeUserExport(int userId, AccountStatementFormat format, LocalDateTime startDate, LocalDateTime endDate,
+                                int compressionLevel, OutputStream outputStream) {
+        List<String> names = new ArrayList<>();
+        List<Future<EntryFile>> futures = new ArrayList<>();
+        for (Account account : accountRepository.findAllByOwnerId(userId)) {
+            names.add("statements/" + account.getId() + "-" + account.getName().replaceAll("[^A-Za-z0-9._-]", "_")
+                    + "." + format.getExtension());
+            futures.add(executor.submit(() -> writeStatement(account.getId(), format, startDate, endDate, userId)));
+        }
+        names.add("budgets.json");
+        futures.add(executor.submit(() -> writeJson(budgetService.getAllBudgets(userId))));
+        names.add("planned-payments.json");
+        futures.add(executor.submit(() -> writeJson(plannedPaymentRepository.findAllByAccount_Owner_Id(userId).stream()
+                .map(plannedPayment -> mapper.map(plannedPayment, PlannedPaymentDTO.class))
+                .collect(Collectors.toList()))));
+        names.add("transfers.json");
+        futures.add(executor.submit(() -> writeJson(transferRepository.findAllByAccountSender_Owner_Id(userId).stream()
+                .map(transfer -> mapper.map(transfer, TransferDTO.class))
+                .collect(Collectors.toList()))));
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        zip.setLevel(compressionLevel);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                EntryFile entryFile = futures.get(i).get();
+                try {
+                    zip.putNextEntry(new ZipEntry(names.get(i)));
+                    Files.copy(entryFile.path, zip);
+                    zip.closeEntry();
+                } finally {
+                    entryFile.release();
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            for (Future<EntryFile> future : futures) {
+                if (!future.cancel(true) && future.isDone() && !future.isCancelled()) {
+                    try {
+                        future.get().release();
+                    } catch (ExecutionException e) {
+                        // the failure has already been reported by the loop above
+                    }
+                }
+            }
+        }
+    }
+
+    // A cached statement is copied into the spool right away, so the export never depends on the cache
+    // keeping the file until its turn in the zip comes.
+    @SneakyThrows
+    private EntryFile writeStatement(int accountId, AccountStatementFormat format, LocalDateTime startDate,
+                                     LocalDateTime endDate, int userId) {
+        Path file = Files.createTempFile(spoolPath, "user-export-", ".part");
+        try (InputStream cached = accountService.openCachedAccountStatement(accountId, format, startDate, endDate, userId)) {
+            if (cached != null) {
+                Files.copy(cached, file, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    accountService.writeAccountStatement(accountId, format, startDate, endDate, userId, out);
+                }
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new EntryFile(file);
+    }
+
+    @SneakyThrows
+    private EntryFile writeJson(Object value) {
+        Path file = Files.createTempFile(spoolPath, "user-export-", ".part");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            objectMapper.writeValue(out, value);
+        } catch (Exception e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new EntryFile(file);
+    }
+
+    private class EntryFile {
+
+        private final Path path;
+        private boolean released;
+
+        private EntryFile(Path path) {
+            this.path = path;
+        }
+
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete export spool file " + path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
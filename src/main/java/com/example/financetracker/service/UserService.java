@@ -1,32 +1,33 @@
 package com.example.financetracker.service;
 
+import com.example.financetracker.NotificationOutbox;
+import com.example.financetracker.ScheduledJob;
+import com.example.financetracker.ScheduledJobRunner;
 import com.example.financetracker.SessionCollector;
+import com.example.financetracker.SmsGateway;
+import com.example.financetracker.TwoFactorCodeStore;
 import com.example.financetracker.model.DTOs.UserDTOs.*;
 import com.example.financetracker.model.entities.LoginLocation;
 import com.example.financetracker.model.entities.User;
 import com.example.financetracker.model.exceptions.BadRequestException;
 import com.example.financetracker.model.exceptions.NotFoundException;
 import com.example.financetracker.model.exceptions.UnauthorizedException;
-import com.vonage.client.VonageClient;
-import com.vonage.client.sms.MessageStatus;
-import com.vonage.client.sms.SmsSubmissionResponse;
-import com.vonage.client.sms.messages.TextMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpSession;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
@@ -40,11 +41,51 @@ public class UserService extends AbstractService {
     private BCryptPasswordEncoder encoder;
 
     @Autowired
-    private JavaMailSender javaMailSender;
+    private NotificationOutbox notificationOutbox;
 
     @Autowired
     private SessionCollector sessionCollector;
 
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SmsGateway smsGateway;
+
+    @Autowired
+    private TotpService totpService;
+
+    @Autowired
+    private TwoFactorCodeStore twoFactorCodeStore;
+
+    @Value("${users.cleanup.batch-size:1000}")
+    private int cleanupBatchSize;
+
+    @Value("${users.cleanup.min-interval-ms:15000}")
+    private long cleanupMinIntervalMs;
+
+    @Value("${users.cleanup.max-interval-ms:600000}")
+    private long cleanupMaxIntervalMs;
+
+    private volatile long cleanupIntervalMs;
+    private volatile long nextCleanupAt;
+    private DistributionSummary cleanupBatchSizes;
+    private Counter cleanupDeleted;
+
+    @PostConstruct
+    public void init() {
+        cleanupIntervalMs = cleanupMinIntervalMs;
+        cleanupBatchSizes = DistributionSummary.builder("users.cleanup.batch.size")
+                .description("Expired unverified users deleted per DELETE statement")
+                .register(meterRegistry);
+        cleanupDeleted = meterRegistry.counter("users.cleanup.deleted");
+        meterRegistry.gauge("users.cleanup.interval.ms", this, service -> service.cleanupIntervalMs);
+    }
+
+    @Transactional
     public UserFullInfoDTO register(RegisterDTO dto) {
         checkMatchingPasswords(dto.getPassword(), dto.getConfirmPassword());
         if (userRepository.existsByEmail(dto.getEmail())) {
@@ -60,9 +101,7 @@ public class UserService extends AbstractService {
         user.setExpirationDate(LocalDateTime.now().plusHours(24));
         userRepository.save(user);
         logger.info("Registered user: " + user.toString());
-        new Thread(() -> {
-            sendEmailValidation(user.getEmail(), uniqueCode);
-        }).start();
+        sendEmailValidation(user.getEmail(), uniqueCode);
 
         return mapper.map(user, UserFullInfoDTO.class);
     }
@@ -82,18 +121,19 @@ public class UserService extends AbstractService {
             loginLocation.setIp(ip);
             loginLocationRepository.save(loginLocation);
             //Send an email to the user with a unique code for invalidating the IP address in case it was compromised
-            new Thread(() -> {
-                String ipUniqueCode = UUID.randomUUID().toString();
-                sendEmailIpInvalidation(user.getEmail(), user.getId(), ipUniqueCode);
-            }).start();
+            String ipUniqueCode = UUID.randomUUID().toString();
+            sendEmailIpInvalidation(user.getEmail(), user.getId(), ipUniqueCode);
         }
+        // Users with an authenticator app confirm the login with its code: no SMS, only the pending login
+        if (user.isTotpEnabled()) {
+            twoFactorCodeStore.put(user.getId(), null);
+            return mapper.map(user, UserFullInfoDTO.class);
+        }
+        // the code is kept in the code store, so the users row is not written on every login
         String sms2FACode = generateCode();
-        user.setSms2FACode(sms2FACode);
-        user.setSmsExpirationDate(LocalDateTime.now().plusMinutes(5));
-        new Thread(() -> {
-            // Send SMS for 2FA authentication
-            send2FASms(user.getPhoneNumber(), sms2FACode);
-        }).start();
+        twoFactorCodeStore.put(user.getId(), sms2FACode);
+        // Send SMS for 2FA authentication
+        smsGateway.send(user.getPhoneNumber(), sms2FACode);
 
         return mapper.map(user, UserFullInfoDTO.class);
     }
@@ -157,35 +197,47 @@ public class UserService extends AbstractService {
         return ResponseEntity.ok("Sessions invalidated.");
     }
 
-    @SneakyThrows
+    // written to the outbox in the caller's transaction and sent once it commits
     private void sendEmailValidation(String email, String code) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("finance.tracker.app2023@gmail.com");
-        message.setTo(email);
-        message.setSubject("Email Validation");
-        message.setText("""
+        notificationOutbox.sendEmail(email, "Email Validation", """
                 Hi,
                                 
                 Please click the following link to validate your email: http://localhost:7777/email-validation?code=""" + code + """
                                 
                 Best regards,
                 The Finance tracker team""");
-        javaMailSender.send(message);
     }
 
-    @Scheduled(fixedRate = 60000)
+    // Ticks at the shortest interval. The interval actually used doubles after every run that finds nothing
+    // and falls back to the minimum as soon as a run deletes something, e.g. during a signup spam wave.
+    @Scheduled(fixedRateString = "${users.cleanup.min-interval-ms:15000}")
     public void cleanExpiredCodes() {
+        if (System.currentTimeMillis() < nextCleanupAt) {
+            return;
+        }
+        scheduledJobRunner.run(ScheduledJob.EXPIRED_USERS_CLEANUP, this::deleteExpiredUsers);
+    }
+
+    public int deleteExpiredUsers() {
         LocalDateTime currentTime = LocalDateTime.now();
-        List<User> expiredUsers = userRepository.findByIsVerifiedAndExpirationDateBefore(false, currentTime);
-        userRepository.deleteAll(expiredUsers);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = userRepository.deleteExpiredUnverifiedUsers(currentTime, cleanupBatchSize);
+            cleanupBatchSizes.record(deleted);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+        cleanupDeleted.increment(total);
+        cleanupIntervalMs = total > 0 ? cleanupMinIntervalMs : Math.min(cleanupIntervalMs * 2, cleanupMaxIntervalMs);
+        nextCleanupAt = System.currentTimeMillis() + cleanupIntervalMs;
+        if (total > 0) {
+            logger.info("Deleted expired unverified users: " + total);
+        }
+        return total;
     }
 
     private void sendEmailIpInvalidation(String email, int id, String code) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("finance.tracker.app2023@gmail.com");
-        message.setTo(email);
-        message.setSubject("Security alert for you linked Finance tracker account");
-        message.setText("""
+        notificationOutbox.sendEmail(email, "Security alert for you linked Finance tracker account", """
                 Hi,
                                 
                 Your Finance tracker account was just signed in to from a new device. You're getting this email to make sure it was you.
@@ -198,8 +250,6 @@ public class UserService extends AbstractService {
                                 
                 Best regards,
                 The Finance tracker team""");
-
-        javaMailSender.send(message);
     }
 
     private void checkMatchingPasswords(String password, String confirmPassword) {
@@ -228,35 +278,15 @@ public class UserService extends AbstractService {
         }
     }
 
-    @Value("${sms.api.key}")
-    private String apiKey;
-    @Value("${sms.api.secret}")
-    private String apiSecret;
-
-    private void send2FASms(String to, String sms2FACode) {
-        VonageClient client = VonageClient.builder().apiKey(apiKey).apiSecret(apiSecret).build();
-        TextMessage message = new TextMessage("Vonage APIs",
-                to,
-                sms2FACode
-        );
-        SmsSubmissionResponse response = client.getSmsClient().submitMessage(message);
-
-        if (response.getMessages().get(0).getStatus() == MessageStatus.OK) {
-            System.out.println("Message sent successfully.");
-        } else {
-            System.out.println("Message failed with error: " + response.getMessages().get(0).getErrorText());
-        }
-    }
-
     public UserFullInfoDTO confirmSmsCode(int userId, String code) {
         Optional<User> optionalUser = userRepository.findById(userId);
         User user = verifyUserExistence(optionalUser);
 
-        if (!user.getSms2FACode().equals(code)) {
-            throw new UnauthorizedException("Confirmation code is invalid.");
-        }
-        if (LocalDateTime.now().isAfter(user.getSmsExpirationDate())) {
-            throw new UnauthorizedException("Confirmation code is expired");
+        // either way the password login must have left a pending login, which also counts the failed attempts
+        if (user.isTotpEnabled()) {
+            twoFactorCodeStore.verify(userId, stored -> totpService.matches(user, code));
+        } else {
+            twoFactorCodeStore.verify(userId, code);
         }
         user.setLastLogin(LocalDateTime.now());
         userRepository.save(user);
@@ -0,0 +1,93 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.financetracker.model.DTOs.AccountDTOs.AccountForecastDTO;
+import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.entities.Category;
+import com.example.financetracker.model.entities.Frequency;
+import com.example.financetracker.model.entities.PlannedPayment;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import com.example.financetracker.model.repositories.AccountRepository;
+import com.example.financetracker.model.repositories.PlannedPaymentRepository;
+import com.example.financetracker.service.AccountForecastService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountForecastServiceTest {
+
+    @Mock
+    private AccountOwnershipCache accountOwnershipCache;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlannedPaymentRepository plannedPaymentRepository;
+
+    @InjectMocks
+    private AccountForecastService accountForecastService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountForecastService, "maxHorizonDays", 366);
+        when(accountOwnershipCache.getOwnerId(3)).thenReturn(7);
+    }
+
+    @Test
+    void getForecastFindsFirstNegativeDay() {
+        // arrange
+        Account account = new Account();
+        account.setId(3);
+        account.setBalance(new BigDecimal("100"));
+        Frequency frequency = new Frequency();
+        frequency.setFrequencyType(Frequency.FrequencyType.WEEKLY);
+        PlannedPayment rent = new PlannedPayment();
+        rent.setAmount(new BigDecimal("60"));
+        rent.setCategory(new Category(5, null, "Rent", Category.CategoryType.EXPENSE));
+        rent.setFrequency(frequency);
+        rent.setDate(LocalDate.now().plusDays(1).atTime(LocalTime.NOON));
+        rent.setStartDate(rent.getDate());
+        when(accountRepository.findById(3)).thenReturn(Optional.of(account));
+        when(plannedPaymentRepository.findAllByAccount_IdAndNextRunAtNotNull(3)).thenReturn(List.of(rent));
+
+        // act
+        AccountForecastDTO forecast = accountForecastService.getForecast(3, "2w", 7);
+
+        // assert
+        assertEquals(14, forecast.getHorizonDays());
+        assertEquals(15, forecast.getDays().size());
+        assertEquals(0, new BigDecimal("40").compareTo(forecast.getDays().get(1).getBalance()));
+        assertEquals(LocalDate.now().plusDays(8), forecast.getFirstNegativeDate());
+        assertEquals(0, new BigDecimal("-20").compareTo(forecast.getLowestBalance()));
+    }
+
+    @Test
+    void getForecastRejectsHorizonBeyondMaximum() {
+        // act & assert
+        assertThrows(BadRequestException.class, () -> accountForecastService.getForecast(3, "367d", 7));
+        assertThrows(BadRequestException.class, () -> accountForecastService.getForecast(3, "53w", 7));
+        assertThrows(BadRequestException.class, () -> accountForecastService.getForecast(3, "0d", 7));
+    }
+
+    @Test
+    void getForecastRejectsOverflowingHorizon() {
+        // act & assert
+        assertThrows(BadRequestException.class, () -> accountForecastService.getForecast(3, "99999999999999999999d", 7));
+        assertThrows(BadRequestException.class, () -> accountForecastService.getForecast(3, "1317624576693539402w", 7));
+        assertThrows(BadRequestException.class, () -> accountForecastService.getForecast(3, "2147483647m", 7));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class AccountOwnershipCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void ownerIsKeptUntilItsTtlRunsOut() {
+        AccountOwnershipCache cache = new AccountOwnershipCache(10, 60, clock::get);
+        cache.put(3, 7);
+        clock.addAndGet(59_999);
+
+        assertEquals(7, cache.getOwnerId(3));
+
+        clock.addAndGet(1);
+
+        assertNull(cache.getOwnerId(3));
+    }
+
+    @Test
+    void evictedAccountIsGoneRightAway() {
+        AccountOwnershipCache cache = new AccountOwnershipCache(10, 60, clock::get);
+        cache.put(3, 7);
+
+        cache.evict(3);
+
+        assertNull(cache.getOwnerId(3));
+    }
+
+    @Test
+    void leastRecentlyUsedAccountMakesRoomWhenFull() {
+        AccountOwnershipCache cache = new AccountOwnershipCache(2, 60, clock::get);
+        cache.put(1, 7);
+        cache.put(2, 7);
+        cache.getOwnerId(1);
+        cache.put(3, 7);
+
+        assertEquals(7, cache.getOwnerId(1));
+        assertNull(cache.getOwnerId(2));
+        assertEquals(7, cache.getOwnerId(3));
+    }
+}
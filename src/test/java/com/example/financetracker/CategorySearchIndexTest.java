@@ -0,0 +1,59 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CategorySearchIndexTest {
+
+    private CategorySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CategorySearchIndex();
+        index.load(List.of(
+                new Category(1, "food.png", "Food", Category.CategoryType.EXPENSE),
+                new Category(2, "fuel.png", "Fuel", Category.CategoryType.EXPENSE),
+                new Category(3, "salary.png", "Salary", Category.CategoryType.INCOME),
+                new Category(4, "home.png", "Home Rent", Category.CategoryType.EXPENSE)));
+    }
+
+    @Test
+    void searchMatchesByPrefix() {
+        List<Category> result = index.search("fo");
+
+        assertEquals(1, result.size());
+        assertEquals("Food", result.get(0).getName());
+    }
+
+    @Test
+    void searchIsCaseInsensitiveAndRanksExactMatchFirst() {
+        List<Category> result = index.search("FUEL");
+
+        assertEquals("Fuel", result.get(0).getName());
+    }
+
+    @Test
+    void searchToleratesTypos() {
+        List<Category> result = index.search("salery");
+
+        assertEquals(1, result.size());
+        assertEquals("Salary", result.get(0).getName());
+    }
+
+    @Test
+    void searchMatchesAnyWordOfName() {
+        List<Category> result = index.search("rent");
+
+        assertEquals("Home Rent", result.get(0).getName());
+    }
+
+    @Test
+    void searchReturnsEmptyListWhenNothingMatches() {
+        assertTrue(index.search("xyz").isEmpty());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.financetracker.model.exceptions.UnauthorizedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class InMemoryTwoFactorCodeStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private InMemoryTwoFactorCodeStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryTwoFactorCodeStore(clock::get);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 5L);
+        ReflectionTestUtils.setField(store, "maxAttempts", 3);
+        ReflectionTestUtils.setField(store, "maxEntries", 2);
+    }
+
+    @Test
+    void matchingCodeIsAcceptedOnce() {
+        store.put(1, "123456");
+
+        store.verify(1, "123456");
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "123456"));
+    }
+
+    @Test
+    void authenticatorLoginNeedsPendingLogin() {
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> true));
+
+        store.put(1, null);
+        store.verify(1, stored -> stored == null);
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> true));
+    }
+
+    @Test
+    void authenticatorLoginIsLockedAfterTooManyWrongAttempts() {
+        store.put(1, null);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> false));
+        }
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> true));
+    }
+
+    @Test
+    void loggingInAgainDoesNotResetWrongAttempts() {
+        store.put(1, null);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> false));
+        }
+
+        store.put(1, null);
+
+        UnauthorizedException e = assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> true));
+        assertEquals("Too many invalid confirmation codes, try again later.", e.getMessage());
+    }
+
+    @Test
+    void lockedLoginIsReleasedOnceItExpires() {
+        store.put(1, null);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(UnauthorizedException.class, () -> store.verify(1, stored -> false));
+        }
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(5) + 1);
+
+        store.put(1, null);
+
+        store.verify(1, stored -> true);
+    }
+
+    @Test
+    void codeIsLockedAfterTooManyWrongAttempts() {
+        store.put(1, "123456");
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "000000"));
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "000000"));
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "000000"));
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "123456"));
+    }
+
+    @Test
+    void newCodeReplacesPendingOne() {
+        store.put(1, "123456");
+        store.put(1, "654321");
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "123456"));
+        store.verify(1, "654321");
+    }
+
+    @Test
+    void codeIsAcceptedUntilItsTtlRunsOut() {
+        store.put(1, "123456");
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(5));
+
+        store.verify(1, "123456");
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        store.put(1, "123456");
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(5) + 1);
+
+        UnauthorizedException e = assertThrows(UnauthorizedException.class, () -> store.verify(1, "123456"));
+        assertEquals("Confirmation code is expired", e.getMessage());
+    }
+
+    @Test
+    void sweepRemovesExpiredCodes() {
+        store.put(1, "111111");
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(3));
+        store.put(2, "222222");
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(3));
+
+        store.removeExpired();
+
+        UnauthorizedException e = assertThrows(UnauthorizedException.class, () -> store.verify(1, "111111"));
+        assertEquals("Confirmation code is invalid.", e.getMessage());
+        store.verify(2, "222222");
+    }
+
+    @Test
+    void oldestCodeIsEvictedWhenFull() {
+        store.put(1, "111111");
+        store.put(2, "222222");
+        store.put(3, "333333");
+
+        assertThrows(UnauthorizedException.class, () -> store.verify(1, "111111"));
+        store.verify(2, "222222");
+        store.verify(3, "333333");
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.financetracker.model.entities.Account;
+import com.example.financetracker.model.entities.StatementDelivery;
+import com.example.financetracker.model.entities.StatementRun;
+import com.example.financetracker.model.entities.User;
+import com.example.financetracker.model.repositories.AccountRepository;
+import com.example.financetracker.model.repositories.StatementDeliveryRepository;
+import com.example.financetracker.model.repositories.StatementRunRepository;
+import com.example.financetracker.model.repositories.UserRepository;
+import com.example.financetracker.service.AccountService;
+import com.example.financetracker.service.MonthlyStatementService;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MonthlyStatementServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @TempDir
+    java.nio.file.Path spoolDir;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private StatementRunRepository statementRunRepository;
+
+    @Mock
+    private StatementDeliveryRepository statementDeliveryRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @InjectMocks
+    private MonthlyStatementService monthlyStatementService;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        ReflectionTestUtils.setField(monthlyStatementService, "javaMailSender", mailSender);
+        ReflectionTestUtils.setField(monthlyStatementService, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(monthlyStatementService, "chunkSize", 50);
+        ReflectionTestUtils.setField(monthlyStatementService, "parallelism", 2);
+        ReflectionTestUtils.setField(monthlyStatementService, "maxAttempts", 3);
+        monthlyStatementService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monthlyStatementService.shutdown();
+    }
+
+    @Test
+    void sendMonthlyStatementsEmailsSubscribedUsersAndCompletesRun() throws Exception {
+        // arrange
+        User user = new User();
+        user.setId(7);
+        user.setEmail("user@example.com");
+        user.setMonthlyStatementFormat("CSV");
+        Account account = new Account();
+        account.setId(3);
+        account.setName("Savings");
+        StatementRun run = new StatementRun();
+        run.setId(1);
+        run.setPeriod("2023-04");
+        when(statementRunRepository.claim(eq("2023-04"), anyString(), any(), any())).thenReturn(1);
+        when(statementRunRepository.findByPeriod("2023-04")).thenReturn(Optional.of(run));
+        when(statementRunRepository.updateProgress(eq(1), anyString(), anyInt(), anyInt(), anyInt(), any(), any()))
+                .thenReturn(1);
+        when(userRepository.findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(List.of(user));
+        when(userRepository.findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(eq(7), any()))
+                .thenReturn(List.of());
+        when(accountRepository.findAllByOwnerId(7)).thenReturn(List.of(account));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(5).write("date,category".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(accountService).writeAccountStatement(eq(3), eq(AccountStatementFormat.CSV), any(), any(), eq(7), any());
+
+        // act
+        monthlyStatementService.sendMonthlyStatements(YearMonth.of(2023, 4));
+
+        // assert
+        MimeMessage[] messages = greenMail.getReceivedMessages();
+        assertEquals(1, messages.length);
+        assertEquals("user@example.com", messages[0].getAllRecipients()[0].toString());
+        MimeMultipart content = (MimeMultipart) messages[0].getContent();
+        assertEquals("Savings-2023-04.csv", content.getBodyPart(1).getFileName());
+
+        ArgumentCaptor<LocalDateTime> completedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(statementRunRepository, times(2)).updateProgress(eq(1), anyString(), eq(7), eq(1), eq(0), any(),
+                completedAt.capture());
+        assertNull(completedAt.getAllValues().get(0));
+        assertNotNull(completedAt.getAllValues().get(1));
+        verify(statementDeliveryRepository).record(eq("2023-04"), eq(7), eq("SENT"), any());
+    }
+
+    @Test
+    void sendMonthlyStatementsSkipsUsersAlreadySentBeforeARestart() {
+        // arrange
+        User user = new User();
+        user.setId(7);
+        StatementRun run = new StatementRun();
+        run.setId(1);
+        run.setPeriod("2023-04");
+        run.setSentCount(1);
+        when(statementRunRepository.claim(eq("2023-04"), anyString(), any(), any())).thenReturn(1);
+        when(statementRunRepository.findByPeriod("2023-04")).thenReturn(Optional.of(run));
+        when(statementRunRepository.updateProgress(eq(1), anyString(), eq(7), eq(1), eq(0), any(), any()))
+                .thenReturn(1);
+        when(userRepository.findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(List.of(user));
+        when(statementDeliveryRepository.findSentUserIds("2023-04", List.of(7))).thenReturn(List.of(7));
+
+        // act
+        int sent = monthlyStatementService.sendMonthlyStatements(YearMonth.of(2023, 4));
+
+        // assert
+        assertEquals(0, sent);
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        verifyNoInteractions(accountRepository);
+        verify(statementDeliveryRepository, never()).record(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void sendMonthlyStatementsKeepsRunOpenWhileFailedUsersCanBeRetried() {
+        // arrange
+        User user = new User();
+        user.setId(7);
+        StatementRun run = new StatementRun();
+        run.setId(1);
+        run.setPeriod("2023-04");
+        when(statementRunRepository.claim(eq("2023-04"), anyString(), any(), any())).thenReturn(1);
+        when(statementRunRepository.findByPeriod("2023-04")).thenReturn(Optional.of(run));
+        when(statementRunRepository.updateProgress(eq(1), anyString(), eq(7), eq(0), eq(1), any(), isNull()))
+                .thenReturn(1);
+        when(userRepository.findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(List.of(user));
+        when(accountRepository.findAllByOwnerId(7)).thenThrow(new IllegalStateException("database unavailable"));
+        when(statementDeliveryRepository.countByPeriodAndStatusAndAttemptsLessThan("2023-04",
+                StatementDelivery.Status.FAILED, 3)).thenReturn(1L);
+
+        // act
+        monthlyStatementService.sendMonthlyStatements(YearMonth.of(2023, 4));
+
+        // assert
+        verify(statementDeliveryRepository).record(eq("2023-04"), eq(7), eq("FAILED"), any());
+        verify(statementRunRepository, times(1)).updateProgress(anyInt(), anyString(), anyInt(), anyInt(), anyInt(),
+                any(), any());
+    }
+
+    @Test
+    void sendMonthlyStatementsRetriesFailedUsersBeforeCompletingRun() {
+        // arrange
+        User user = new User();
+        user.setId(7);
+        user.setMonthlyStatementFormat("CSV");
+        StatementRun run = new StatementRun();
+        run.setId(1);
+        run.setPeriod("2023-04");
+        run.setLastUserId(7);
+        run.setFailedCount(1);
+        StatementDelivery delivery = new StatementDelivery();
+        delivery.setUserId(7);
+        delivery.setStatus(StatementDelivery.Status.FAILED);
+        delivery.setAttempts(1);
+        when(statementRunRepository.claim(eq("2023-04"), anyString(), any(), any())).thenReturn(1);
+        when(statementRunRepository.findByPeriod("2023-04")).thenReturn(Optional.of(run));
+        when(statementRunRepository.updateProgress(eq(1), anyString(), eq(7), eq(1), eq(0), any(), any()))
+                .thenReturn(1);
+        when(statementDeliveryRepository.findAllByPeriodAndStatusAndAttemptsLessThanAndUpdatedAtBeforeOrderByUserIdAsc(
+                eq("2023-04"), eq(StatementDelivery.Status.FAILED), eq(3), any())).thenReturn(List.of(delivery));
+        when(userRepository.findById(7)).thenReturn(Optional.of(user));
+        when(accountRepository.findAllByOwnerId(7)).thenReturn(List.of());
+
+        // act
+        int sent = monthlyStatementService.sendMonthlyStatements(YearMonth.of(2023, 4));
+
+        // assert
+        assertEquals(1, sent);
+        verify(statementDeliveryRepository).record(eq("2023-04"), eq(7), eq("SENT"), any());
+        ArgumentCaptor<LocalDateTime> completedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(statementRunRepository, times(2)).updateProgress(eq(1), anyString(), eq(7), eq(1), eq(0), any(),
+                completedAt.capture());
+        assertNotNull(completedAt.getAllValues().get(1));
+    }
+
+    @Test
+    void sendMonthlyStatementsSkipsRunItCannotClaim() {
+        // arrange
+        when(statementRunRepository.claim(eq("2023-04"), anyString(), any(), any())).thenReturn(0);
+
+        // act
+        int sent = monthlyStatementService.sendMonthlyStatements(YearMonth.of(2023, 4));
+
+        // assert
+        assertEquals(0, sent);
+        verify(statementRunRepository).insertIfAbsent(eq("2023-04"), any());
+        verify(statementRunRepository, never()).findByPeriod(any());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void sendMonthlyStatementsStopsOnceClaimIsLost() {
+        // arrange
+        User user = new User();
+        user.setId(7);
+        StatementRun run = new StatementRun();
+        run.setId(1);
+        run.setPeriod("2023-04");
+        when(statementRunRepository.claim(eq("2023-04"), anyString(), any(), any())).thenReturn(1);
+        when(statementRunRepository.findByPeriod("2023-04")).thenReturn(Optional.of(run));
+        when(userRepository.findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(List.of(user));
+        when(accountRepository.findAllByOwnerId(7)).thenReturn(List.of());
+        when(statementRunRepository.updateProgress(eq(1), anyString(), eq(7), eq(1), eq(0), any(), isNull()))
+                .thenReturn(0);
+
+        // act
+        monthlyStatementService.sendMonthlyStatements(YearMonth.of(2023, 4));
+
+        // assert
+        verify(userRepository, never()).findByMonthlyStatementFormatNotNullAndIdGreaterThanOrderByIdAsc(eq(7), any());
+        verify(statementRunRepository, times(1)).updateProgress(anyInt(), anyString(), anyInt(), anyInt(), anyInt(),
+                any(), any());
+    }
+}
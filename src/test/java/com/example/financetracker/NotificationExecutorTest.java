@@ -0,0 +1,106 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class NotificationExecutorTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private NotificationExecutor notificationExecutor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        notificationExecutor = new NotificationExecutor();
+        ReflectionTestUtils.setField(notificationExecutor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(notificationExecutor, "threads", 1);
+        ReflectionTestUtils.setField(notificationExecutor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(notificationExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(notificationExecutor, "retryDelayMs", 10L);
+        notificationExecutor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationExecutor.shutdown();
+    }
+
+    @Test
+    void sendsEmailThroughThePool() throws MessagingException {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("finance.tracker.app2023@gmail.com");
+        message.setTo("john@example.com");
+        message.setSubject("Email Validation");
+        message.setText("code");
+
+        notificationExecutor.submit("email-validation", () -> mailSender.send(message));
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals("Email Validation", received[0].getSubject());
+    }
+
+    @Test
+    void retriesFailedSendsUntilTheySucceed() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        notificationExecutor.submit("sms-2fa", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("gateway unavailable");
+            }
+            delivered.countDown();
+        });
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.get("notifications.send").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void runsOnCallerThreadWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<String> senderThreads = new CopyOnWriteArrayList<>();
+
+        notificationExecutor.submit("sms-2fa", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        notificationExecutor.submit("sms-2fa", () -> senderThreads.add(Thread.currentThread().getName()));
+        notificationExecutor.submit("sms-2fa", () -> senderThreads.add(Thread.currentThread().getName()));
+        release.countDown();
+
+        assertEquals(Thread.currentThread().getName(), senderThreads.get(0));
+        assertEquals(1.0, meterRegistry.get("notifications.caller.runs").counter().count());
+    }
+}
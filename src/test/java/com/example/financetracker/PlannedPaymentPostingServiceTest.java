@@ -0,0 +1,259 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import com.example.financetracker.model.DTOs.CurrencyDTOs.CurrencyExchangeDTO;
+import com.example.financetracker.model.entities.*;
+import com.example.financetracker.model.repositories.BudgetRepository;
+import com.example.financetracker.model.repositories.PlannedPaymentRepository;
+import com.example.financetracker.service.CurrencyExchangeService;
+import com.example.financetracker.service.PlannedPaymentPostingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class PlannedPaymentPostingServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 5, 15, 10, 0, 30, 500);
+    private static final LocalDateTime FIRST_DUE = LocalDateTime.of(2023, 3, 15, 9, 0);
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlannedPaymentRepository plannedPaymentRepository;
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private CurrencyExchangeService currencyExchangeService;
+
+    @Mock
+    private PlannedPaymentTimer plannedPaymentTimer;
+
+    @InjectMocks
+    private PlannedPaymentPostingService plannedPaymentPostingService;
+
+    private PlannedPayment plannedPayment;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(plannedPaymentPostingService, "leaseMinutes", 15);
+        User owner = new User();
+        owner.setId(1);
+        Account account = new Account();
+        account.setId(10);
+        account.setOwner(owner);
+        account.setBalance(new BigDecimal("1000"));
+        account.setCurrency(new Currency(1, "BGN"));
+        Frequency frequency = new Frequency();
+        frequency.setFrequencyType(Frequency.FrequencyType.MONTHLY);
+        plannedPayment = new PlannedPayment();
+        plannedPayment.setId(100);
+        plannedPayment.setAccount(account);
+        plannedPayment.setAmount(new BigDecimal("100"));
+        plannedPayment.setCategory(new Category(5, "rent.png", "Rent", Category.CategoryType.EXPENSE));
+        plannedPayment.setFrequency(frequency);
+        plannedPayment.setDate(FIRST_DUE);
+        plannedPayment.setStartDate(FIRST_DUE);
+        plannedPayment.setNextRunAt(LocalDateTime.of(2023, 5, 15, 10, 15, 30));
+    }
+
+    @Test
+    void postsEveryMissedOccurrenceAndAdvancesToTheNextOne() {
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(3, posted);
+        SqlParameterSource[] transactions = captureBatch("INSERT INTO transactions");
+        assertEquals(3, transactions.length);
+        assertEquals(LocalDateTime.of(2023, 5, 15, 9, 0), transactions[2].getValue("date"));
+        SqlParameterSource[] accounts = captureBatch("UPDATE accounts");
+        assertEquals(0, new BigDecimal("-300").compareTo((BigDecimal) accounts[0].getValue("delta")));
+        SqlParameterSource[] plannedPayments = captureBatch("UPDATE planned_payments");
+        assertEquals(LocalDateTime.of(2023, 6, 15, 9, 0), plannedPayments[0].getValue("nextRunAt"));
+    }
+
+    @Test
+    void paymentWithoutStartDateIsAnchoredAtItsCurrentDate() {
+        plannedPayment.setStartDate(null);
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+
+        plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        SqlParameterSource[] plannedPayments = captureBatch("UPDATE planned_payments");
+        assertEquals(FIRST_DUE, plannedPayments[0].getValue("startDate"));
+    }
+
+    @Test
+    void alreadyPostedOccurrenceIsNotChargedAgain() throws Exception {
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(100);
+        when(rs.getObject(2, LocalDateTime.class)).thenReturn(FIRST_DUE);
+        doAnswer(invocation -> {
+            invocation.getArgument(2, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT planned_payment_id"), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(2, posted);
+        SqlParameterSource[] accounts = captureBatch("UPDATE accounts");
+        assertEquals(0, new BigDecimal("-200").compareTo((BigDecimal) accounts[0].getValue("delta")));
+    }
+
+    @Test
+    void blockedPaymentIsRetriedAfterALeaseAtFirst() {
+        plannedPayment.getAccount().setBalance(BigDecimal.ZERO);
+        plannedPayment.setDate(LocalDateTime.of(2023, 5, 15, 10, 0));
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(0, posted);
+        SqlParameterSource[] plannedPayments = captureBatch("UPDATE planned_payments");
+        assertEquals(LocalDateTime.of(2023, 5, 15, 10, 0), plannedPayments[0].getValue("date"));
+        assertEquals(LocalDateTime.of(2023, 5, 15, 10, 15, 30), plannedPayments[0].getValue("nextRunAt"));
+    }
+
+    @Test
+    void blockedPaymentWaitsAsLongAsItHasBeenOverdue() {
+        plannedPayment.getAccount().setBalance(new BigDecimal("150"));
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(1, posted);
+        SqlParameterSource[] plannedPayments = captureBatch("UPDATE planned_payments");
+        assertEquals(LocalDateTime.of(2023, 4, 15, 9, 0), plannedPayments[0].getValue("date"));
+        assertEquals(LocalDateTime.of(2023, 6, 14, 11, 1), plannedPayments[0].getValue("nextRunAt"));
+    }
+
+    @Test
+    void blockedPaymentBacksOffUntilTheNextOccurrence() {
+        plannedPayment.getAccount().setBalance(new BigDecimal("50"));
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(0, posted);
+        SqlParameterSource[] plannedPayments = captureBatch("UPDATE planned_payments");
+        assertEquals(FIRST_DUE, plannedPayments[0].getValue("date"));
+        // overdue for two months, so the doubled wait is capped at the next occurrence
+        assertEquals(LocalDateTime.of(2023, 6, 15, 9, 0), plannedPayments[0].getValue("nextRunAt"));
+        verify(plannedPaymentTimer).schedule(100, LocalDateTime.of(2023, 6, 15, 9, 0));
+    }
+
+    @Test
+    void incomeIsHeldToTheSameFundsCheckAsAnyTransaction() {
+        plannedPayment.setCategory(new Category(6, "salary.png", "Salary", Category.CategoryType.INCOME));
+        plannedPayment.getAccount().setBalance(new BigDecimal("50"));
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(0, posted);
+        SqlParameterSource[] plannedPayments = captureBatch("UPDATE planned_payments");
+        assertEquals(FIRST_DUE, plannedPayments[0].getValue("date"));
+    }
+
+    @Test
+    void exchangeRatesAreFetchedOncePerCurrencyPair() {
+        Budget budget = eurRentBudget();
+        Budget otherBudget = eurRentBudget();
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+        when(budgetRepository.findAllByOwnerId(1)).thenReturn(List.of(budget, otherBudget));
+        when(currencyExchangeService.getExchangedCurrency("BGN", "EUR", BigDecimal.ONE))
+                .thenReturn(new CurrencyExchangeDTO("true", new BigDecimal("0.5")));
+
+        Map<String, BigDecimal> rates = plannedPaymentPostingService.getExchangeRates(List.of(100));
+
+        assertEquals(Map.of("1>2", new BigDecimal("0.5")), rates);
+        verify(currencyExchangeService, times(1)).getExchangedCurrency(anyString(), anyString(), any());
+    }
+
+    @Test
+    void budgetInAnotherCurrencyUsesThePrefetchedRate() {
+        Budget budget = eurRentBudget();
+        holdLease(List.of(100));
+        when(plannedPaymentRepository.findAllById(List.of(100))).thenReturn(List.of(plannedPayment));
+        when(budgetRepository.findAllByOwnerId(1)).thenReturn(List.of(budget));
+
+        plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of("1>2", new BigDecimal("0.5")));
+
+        SqlParameterSource[] budgets = captureBatch("UPDATE budgets");
+        assertEquals(0, new BigDecimal("150").compareTo((BigDecimal) budgets[0].getValue("amount")));
+        verifyNoInteractions(currencyExchangeService);
+    }
+
+    @Test
+    void paymentWhoseLeaseRanOutIsSkipped() {
+        holdLease(List.of());
+
+        int posted = plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        assertEquals(0, posted);
+        verify(plannedPaymentRepository, never()).findAllById(any());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void leaseIsComparedAtWholeSeconds() {
+        holdLease(List.of());
+
+        plannedPaymentPostingService.postDuePayments(List.of(100), NOW, Map.of());
+
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).queryForList(anyString(), params.capture(), eq(Integer.class));
+        assertEquals(LocalDateTime.of(2023, 5, 15, 10, 15, 30), params.getValue().getValue("lease"));
+    }
+
+    private Budget eurRentBudget() {
+        Budget budget = new Budget();
+        budget.setId(50);
+        budget.setCategory(plannedPayment.getCategory());
+        budget.setCurrency(new Currency(2, "EUR"));
+        budget.setStartDate(LocalDateTime.of(2023, 1, 1, 0, 0));
+        budget.setEndDate(LocalDateTime.of(2023, 12, 31, 0, 0));
+        return budget;
+    }
+
+    private void holdLease(List<Integer> heldIds) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM planned_payments"), any(SqlParameterSource.class),
+                eq(Integer.class))).thenReturn(heldIds);
+    }
+
+    private SqlParameterSource[] captureBatch(String sqlPrefix) {
+        ArgumentCaptor<SqlParameterSource[]> batch = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith(sqlPrefix), batch.capture());
+        return batch.getValue();
+    }
+}
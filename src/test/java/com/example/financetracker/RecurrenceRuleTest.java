@@ -0,0 +1,84 @@
+package com.example.financetracker;
+
+import com.example.financetracker.model.entities.Frequency;
+import com.example.financetracker.model.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurrenceRuleTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 8, 0);
+
+    @Test
+    void monthlyFrequencyFallsOnLastDayOfShorterMonths() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 31, 9, 0);
+
+        List<LocalDateTime> occurrences = RecurrenceRule.of(Frequency.FrequencyType.MONTHLY)
+                .between(start, start, start.plusMonths(2));
+
+        assertEquals(List.of(start, LocalDateTime.of(2023, 2, 28, 9, 0), LocalDateTime.of(2023, 3, 31, 9, 0)), occurrences);
+    }
+
+    @Test
+    void lastBusinessDayOfMonth() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1");
+
+        List<LocalDateTime> occurrences = rule.between(START, LocalDateTime.of(2023, 4, 1, 0, 0), LocalDateTime.of(2023, 5, 1, 0, 0));
+
+        assertEquals(List.of(LocalDateTime.of(2023, 4, 28, 8, 0)), occurrences);
+    }
+
+    @Test
+    void weeklyIntervalWithByDayStopsAfterCount() {
+        LocalDateTime wednesday = LocalDateTime.of(2023, 4, 5, 10, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,FR;COUNT=3");
+
+        List<LocalDateTime> occurrences = rule.between(wednesday, wednesday, wednesday.plusYears(1));
+
+        assertEquals(List.of(LocalDateTime.of(2023, 4, 7, 10, 0), LocalDateTime.of(2023, 4, 17, 10, 0),
+                LocalDateTime.of(2023, 4, 21, 10, 0)), occurrences);
+    }
+
+    @Test
+    void nextReturnsNullAfterUntil() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3;UNTIL=20230107");
+
+        assertEquals(LocalDateTime.of(2023, 1, 7, 8, 0), rule.next(START, START.plusDays(4)));
+        assertNull(rule.next(START, START.plusDays(6)));
+    }
+
+    @Test
+    void nextJumpsToTheSameOccurrenceAsSteppingThroughTheSeries() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU");
+        LocalDateTime after = LocalDateTime.of(2030, 6, 15, 0, 0);
+
+        LocalDateTime stepped = START;
+        while (!stepped.isAfter(after)) {
+            stepped = rule.next(START, stepped);
+        }
+
+        assertEquals(stepped, rule.next(START, after));
+    }
+
+    @Test
+    void parseRejectsUnsupportedRules() {
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=HOURLY"));
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=2MO"));
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=MONTHLY;INTERVAL=0"));
+    }
+
+    @Test
+    void parseRejectsOutOfRangeIntervalAndCount() {
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=2000000000"));
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=DAILY;INTERVAL=1001"));
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=10001"));
+        assertThrows(BadRequestException.class, () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=99999999999"));
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=1000;COUNT=10000");
+        LocalDateTime start = LocalDateTime.of(2023, 1, 31, 9, 0);
+        assertEquals(LocalDateTime.of(3023, 1, 31, 9, 0), rule.next(start, start));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void burstPassesWithoutWaiting() {
+        TokenBucket bucket = new TokenBucket(3, 10, clock::get);
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+    }
+
+    @Test
+    void waitersAreSpacedByTheRate() {
+        TokenBucket bucket = new TokenBucket(1, 10, clock::get);
+        bucket.reserve();
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve());
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 10, clock::get);
+        bucket.reserve();
+        bucket.reserve();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > 0);
+    }
+}
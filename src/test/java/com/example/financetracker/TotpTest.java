@@ -0,0 +1,47 @@
+package com.example.financetracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class TotpTest {
+
+    // the SHA1 seed of the RFC 6238 test vectors
+    private static final byte[] RFC_KEY = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void generateMatchesRfcTestVectors() {
+        assertEquals("287082", Totp.generate(RFC_KEY, Totp.getStep(59)));
+        assertEquals("081804", Totp.generate(RFC_KEY, Totp.getStep(1111111109)));
+        assertEquals("005924", Totp.generate(RFC_KEY, Totp.getStep(1234567890)));
+        assertEquals("279037", Totp.generate(RFC_KEY, Totp.getStep(2000000000)));
+    }
+
+    @Test
+    void base32RoundTrips() {
+        String secret = Totp.encodeBase32(RFC_KEY);
+
+        assertEquals("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ", secret);
+        assertArrayEquals(RFC_KEY, Totp.decodeBase32(secret));
+    }
+
+    @Test
+    void verifyAcceptsCodesWithinDrift() {
+        String secret = Totp.encodeBase32(RFC_KEY);
+
+        assertEquals(1, Totp.verify(secret, "287082", 59, 1));
+        assertEquals(1, Totp.verify(secret, "287082", 89, 1));
+        assertEquals(-1, Totp.verify(secret, "287082", 200, 1));
+    }
+
+    @Test
+    void verifyRejectsMalformedCodes() {
+        String secret = Totp.generateSecret();
+
+        assertEquals(-1, Totp.verify(secret, null, 59, 1));
+        assertEquals(-1, Totp.verify(secret, "12345", 59, 1));
+        assertEquals(-1, Totp.verify(secret, "abcdef", 59, 1));
+    }
+}